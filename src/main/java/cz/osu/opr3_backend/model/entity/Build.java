@@ -2,7 +2,10 @@ package cz.osu.opr3_backend.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +23,8 @@ public class Build {
     private Long version;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "build_seq")
+    @SequenceGenerator(name = "build_seq", sequenceName = "build_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -37,6 +41,27 @@ public class Build {
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
 
+    // agregaty ze snapshotu polozek (BuildItem), udrzuje BuildAggregator pri addItem/removeItem
+    // (null = jeste nespocitane)
+
+    // pocet kusu podle Product.Category.ordinal()
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "category_qty")
+    private int[] categoryQty;
+
+    private Integer totalTdpW;
+
+    @Column(length = 32)
+    private String cpuSocket;
+
+    @Column(length = 32)
+    private String mbSocket;
+
+    private Integer psuWattageW;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal totalPrice;
+
     @PrePersist
     void prePersist() {
         if (createdAt == null) createdAt = Instant.now();
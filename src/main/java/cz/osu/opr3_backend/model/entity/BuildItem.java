@@ -3,6 +3,8 @@ package cz.osu.opr3_backend.model.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,7 +21,8 @@ import lombok.*;
 public class BuildItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "build_item_seq")
+    @SequenceGenerator(name = "build_item_seq", sequenceName = "build_item_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -32,4 +35,21 @@ public class BuildItem {
 
     @Column(nullable = false)
     private Integer quantity;
+
+    // snapshot produktu v okamziku pridani (BuildAggregator.snapshot); agregaty buildu se posouvaji
+    // podle nej, takze pozdejsi zmena produktu je nerozhodi (null = stara polozka bez snapshotu)
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Product.Category category;
+
+    private Integer tdpW;
+
+    @Column(length = 32)
+    private String socket;
+
+    private Integer wattageW;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal unitPrice;
 }
@@ -0,0 +1,66 @@
+package cz.osu.opr3_backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Asynchronni checkout (CheckoutJobService) – stav v DB, aby ho slo cist z kterekoli instance i po restartu
+@Entity
+@Table(
+        name = "checkout_job",
+        indexes = {
+                // uklid dokoncenych a hledani ztracenych jobu
+                @Index(name = "ix_checkout_job_state_updated", columnList = "state, updated_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutJob {
+
+    public enum State { QUEUED, PROCESSING, COMPLETED, FAILED }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 80)
+    private String username;
+
+    @Column(name = "build_id", nullable = false)
+    private Long buildId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+
+    // instance, v jejiz fronte job je; dokud bezi, obnovuje updatedAt (heartbeat)
+    @Column(name = "node_id", length = 36)
+    private String nodeId;
+
+    // vytvorena objednavka (COMPLETED); zapisuje se v transakci checkoutu
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = 32)
+    private String error;
+
+    @Column(columnDefinition = "text")
+    private String message;
+
+    // JSON (productId/requested/available, reasons)
+    @Column(columnDefinition = "text")
+    private String details;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
@@ -0,0 +1,43 @@
+package cz.osu.opr3_backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Podil skladu flash-sale produktu odepsany z product.stock pro jednu instanci (FlashSaleLedger) –
+// instance ho prodava z pameti, nevyuzite kusy vraci pri vypnuti nebo je po expiraci vrati jina instance
+@Entity
+@Table(
+        name = "flash_sale_allotment",
+        uniqueConstraints = @UniqueConstraint(
+                name = "ux_flash_sale_allotment_product_node",
+                columnNames = {"product_id", "node_id"}
+        ),
+        indexes = @Index(name = "ix_flash_sale_allotment_expires", columnList = "expires_at")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlashSaleAllotment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "node_id", nullable = false, length = 36)
+    private String nodeId;
+
+    // kusy, ktere instance jeste neprodala (volne + rezervovane + neodepsane prodane)
+    @Column(nullable = false)
+    private Integer qty;
+
+    // instance podil prubezne prodluzuje; po expiraci ho vrati do skladu kterakoli instance
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,47 @@
+package cz.osu.opr3_backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Ulozena odpoved na request s hlavickou Idempotency-Key (opakovani vrati stejnou odpoved)
+@Entity
+@Table(
+        name = "idempotency_record",
+        uniqueConstraints = @UniqueConstraint(
+                name = "ux_idempotency_record_user_key",
+                columnNames = {"username", "idem_key"}
+        ),
+        indexes = @Index(name = "ix_idempotency_record_expires_at", columnList = "expires_at")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 80)
+    private String username;
+
+    @Column(name = "idem_key", nullable = false, length = 128)
+    private String idemKey;
+
+    // operace + parametry requestu; stejny klic pro jiny request = chyba klienta
+    @Column(nullable = false, length = 255)
+    private String scope;
+
+    @Column(name = "response_body", nullable = false, columnDefinition = "text")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -14,7 +14,17 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        indexes = {
+                // keyset strankovani (createdAt desc, id desc) – "moje objednavky" a admin seznam
+                @Index(name = "ix_orders_owner_created", columnList = "owner_id, created_at, id"),
+                @Index(name = "ix_orders_created", columnList = "created_at, id"),
+                // filtr podle stavu ("moje otevrene objednavky", admin fronta PAID)
+                @Index(name = "ix_orders_owner_status_created", columnList = "owner_id, status, created_at, id"),
+                @Index(name = "ix_orders_status_created", columnList = "status, created_at, id")
+        }
+)
 public class Order {
 
     public enum Status { NEW, PAID, SHIPPED, CANCELLED }
@@ -23,7 +33,8 @@ public class Order {
     private Long version;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
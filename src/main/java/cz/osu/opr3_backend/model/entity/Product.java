@@ -2,13 +2,21 @@ package cz.osu.opr3_backend.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(
         name = "product",
-        indexes = @Index(name = "ix_product_category", columnList = "category"),
+        indexes = {
+                @Index(name = "ix_product_category", columnList = "category"),
+                // razeni katalogu (stock bez indexu – odpis skladu tak zustava HOT update)
+                @Index(name = "ix_product_category_price", columnList = "category, price, id"),
+                @Index(name = "ix_product_price", columnList = "price, id"),
+                @Index(name = "ix_product_name", columnList = "name, id")
+        },
         uniqueConstraints = @UniqueConstraint(name = "ux_product_sku", columnNames = "sku")
 )
 @Getter
@@ -38,13 +46,23 @@ public class Product {
     @Column(nullable = false)
     private BigDecimal price;
 
-    // Parametry komponenty (socket, TDP, délka GPU, ...)
-    @Column(columnDefinition = "text")
+    // Parametry komponenty (socket, TDP, délka GPU, ...) – JSON objekt, v DB jako jsonb (GIN index)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
     private String spec;
 
+    // u rozdeleneho skladu (stockShards > 0) jen prubezne obnovovany soucet slotu, viz ProductStockShard
     @Column(nullable = false)
     private Integer stock;
 
+    // pocet slotu skladu pro "horke" produkty; null = sklad primo v product.stock
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+
+    // flash-sale: sklad se rezervuje v pameti (FlashSaleLedger), do DB se odepisuje davkove
+    @Column(name = "flash_sale")
+    private Boolean flashSale;
+
     public enum Category {
         CPU, MB, RAM, GPU, CASE, PSU, STORAGE, COOLER, OTHER
     }
@@ -0,0 +1,35 @@
+package cz.osu.opr3_backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Jeden slot rozdeleneho skladu produktu – odpisy se rozlozi do vice radku misto jednoho zamku na product
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+        name = "product_stock_shard",
+        uniqueConstraints = @UniqueConstraint(
+                name = "ux_product_stock_shard_product_slot",
+                columnNames = {"product_id", "slot"}
+        )
+)
+public class ProductStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Integer stock;
+}
@@ -1,12 +1,23 @@
 package cz.osu.opr3_backend.model.repo;
 
 import cz.osu.opr3_backend.model.entity.Build;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BuildRepository extends JpaRepository<Build, Long> {
+    // seznam buildu vcetne polozek a produktu jednim selectem (BuildResponse bez N+1)
+    @EntityGraph(attributePaths = {"items", "items.product"})
     List<Build> findAllByOwner_UsernameOrderByCreatedAtDesc(String username);
-    Optional<Build> findByIdAndOwner_Username(Long id, String username);
+
+    // build + vlastnik + polozky + produkty jednim selectem (detail, zmeny polozek, vyhodnoceni, checkout)
+    @EntityGraph(attributePaths = {"owner", "items", "items.product"})
+    Optional<Build> findWithItemsByIdAndOwner_Username(Long id, String username);
+
+    // vice buildu naraz (batch vyhodnoceni) – jeden select bez ohledu na pocet id
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    List<Build> findAllWithItemsByIdInAndOwner_Username(Collection<Long> ids, String username);
 
 }
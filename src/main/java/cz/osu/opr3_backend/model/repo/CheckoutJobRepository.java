@@ -0,0 +1,76 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.CheckoutJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface CheckoutJobRepository extends JpaRepository<CheckoutJob, String> {
+
+    Optional<CheckoutJob> findByIdAndUsername(String id, String username);
+
+    // prechody stavu jen z ocekavaneho stavu – job mezitim mohl byt oznacen jako ztraceny
+    @Modifying
+    @Query("""
+            update CheckoutJob j set j.state = :to, j.updatedAt = :now
+            where j.id = :id and j.state = :from
+            """)
+    int transition(@Param("id") String id,
+                   @Param("from") CheckoutJob.State from,
+                   @Param("to") CheckoutJob.State to,
+                   @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update CheckoutJob j
+            set j.state = cz.osu.opr3_backend.model.entity.CheckoutJob.State.COMPLETED,
+                j.orderId = :orderId, j.updatedAt = :now, j.completedAt = :now
+            where j.id = :id and j.state = cz.osu.opr3_backend.model.entity.CheckoutJob.State.PROCESSING
+            """)
+    int complete(@Param("id") String id, @Param("orderId") Long orderId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update CheckoutJob j
+            set j.state = cz.osu.opr3_backend.model.entity.CheckoutJob.State.FAILED,
+                j.error = :error, j.message = :message, j.details = :details,
+                j.updatedAt = :now, j.completedAt = :now
+            where j.id = :id and j.state = cz.osu.opr3_backend.model.entity.CheckoutJob.State.PROCESSING
+            """)
+    int fail(@Param("id") String id,
+             @Param("error") String error,
+             @Param("message") String message,
+             @Param("details") String details,
+             @Param("now") Instant now);
+
+    // bezici instance potvrzuje joby, ktere ma ve fronte nebo zpracovava
+    @Modifying
+    @Query("""
+            update CheckoutJob j set j.updatedAt = :now
+            where j.nodeId = :nodeId and j.id in :ids
+              and j.state in (cz.osu.opr3_backend.model.entity.CheckoutJob.State.QUEUED,
+                              cz.osu.opr3_backend.model.entity.CheckoutJob.State.PROCESSING)
+            """)
+    int heartbeat(@Param("nodeId") String nodeId, @Param("ids") Collection<String> ids, @Param("now") Instant now);
+
+    // rozpracovany job bez heartbeatu patril instanci, ktera mezitim skoncila (fronta byla jen v jeji pameti)
+    @Modifying
+    @Query("""
+            update CheckoutJob j
+            set j.state = cz.osu.opr3_backend.model.entity.CheckoutJob.State.FAILED,
+                j.error = 'LOST', j.message = :message, j.updatedAt = :now, j.completedAt = :now
+            where j.state in (cz.osu.opr3_backend.model.entity.CheckoutJob.State.QUEUED,
+                              cz.osu.opr3_backend.model.entity.CheckoutJob.State.PROCESSING)
+              and j.updatedAt < :cutoff
+            """)
+    int failStale(@Param("cutoff") Instant cutoff, @Param("message") String message, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from CheckoutJob j where j.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,55 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.FlashSaleAllotment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface FlashSaleAllotmentRepository extends JpaRepository<FlashSaleAllotment, Long> {
+
+    boolean existsByProductIdAndNodeId(Long productId, String nodeId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from FlashSaleAllotment a where a.productId = :productId and a.nodeId = :nodeId")
+    Optional<FlashSaleAllotment> lockByProductIdAndNodeId(@Param("productId") Long productId, @Param("nodeId") String nodeId);
+
+    // navyseni podilu o kusy prave odepsane ze skladu – 0 = instance podil jeste nema
+    @Modifying
+    @Query("""
+            update FlashSaleAllotment a set a.qty = a.qty + :qty, a.expiresAt = :expiresAt
+            where a.productId = :productId and a.nodeId = :nodeId
+            """)
+    int add(@Param("productId") Long productId,
+            @Param("nodeId") String nodeId,
+            @Param("qty") int qty,
+            @Param("expiresAt") Instant expiresAt);
+
+    // prodane kusy z podilu – 0 = podil uz neni (vracen do skladu), prodane je treba odepsat primo ze skladu
+    @Modifying
+    @Query("""
+            update FlashSaleAllotment a set a.qty = a.qty - :qty
+            where a.productId = :productId and a.nodeId = :nodeId and a.qty >= :qty
+            """)
+    int settle(@Param("productId") Long productId, @Param("nodeId") String nodeId, @Param("qty") int qty);
+
+    @Modifying
+    @Query("update FlashSaleAllotment a set a.expiresAt = :expiresAt where a.nodeId = :nodeId")
+    int renew(@Param("nodeId") String nodeId, @Param("expiresAt") Instant expiresAt);
+
+    // podily instanci, ktere skoncily bez vraceni; zamek, aby je dve instance nevratily dvakrat
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from FlashSaleAllotment a where a.expiresAt < :now order by a.id")
+    List<FlashSaleAllotment> lockExpired(@Param("now") Instant now);
+
+    // novy stav skladu nastaveny adminem – podily vsech instanci propadnou
+    @Modifying
+    @Query("delete from FlashSaleAllotment a where a.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,27 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUsernameAndIdemKeyAndExpiresAtAfter(String username, String idemKey, Instant now);
+
+    // propadly zaznam stejneho klice (jinak by novy insert narazil na unique constraint az do purgeExpired)
+    @Modifying
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.username = :username and r.idemKey = :idemKey and r.expiresAt <= :now
+            """)
+    int deleteExpiredKey(@Param("username") String username, @Param("idemKey") String idemKey, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
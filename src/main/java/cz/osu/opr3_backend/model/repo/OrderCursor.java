@@ -0,0 +1,31 @@
+package cz.osu.opr3_backend.model.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Pozice v seznamu objednávek řazeném {@code (createdAt desc, id desc)}.
+ * Klient ji dostává jako neprůhledný řetězec ({@code nextCursor}) a posílá zpět v {@code ?cursor=}.
+ */
+public record OrderCursor(Instant createdAt, Long id) {
+
+    public String encode() {
+        String raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null/prazdny = prvni stranka
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("Invalid cursor");
+            return new OrderCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
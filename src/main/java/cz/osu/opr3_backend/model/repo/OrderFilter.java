@@ -0,0 +1,18 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.Order;
+
+import java.time.Instant;
+
+/**
+ * Filtr seznamu objednávek; null = bez omezení.
+ * {@code from} je včetně, {@code to} bez ({@code from <= createdAt < to}).
+ */
+public record OrderFilter(String ownerUsername, Order.Status status, Instant from, Instant to) {
+
+    public OrderFilter {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+}
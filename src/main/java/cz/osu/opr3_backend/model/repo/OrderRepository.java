@@ -1,18 +1,24 @@
 package cz.osu.opr3_backend.model.repo;
 
 import cz.osu.opr3_backend.model.entity.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    // objednávky aktivního uživatele
-    List<Order> findAllByOwner_UsernameOrderByCreatedAtDesc(String username);
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    // objednávky aktivního uživatele (seznamy jdou přes findPageKeys, viz OrderRepositoryCustom)
+    // detail vcetne vlastnika (audit log), polozek a produktu jednim selectem
+    @EntityGraph(attributePaths = {"owner", "items", "items.product"})
     Optional<Order> findByIdAndOwner_Username(Long id, String username);
 
-    // admin – všechny
-    List<Order> findAllByOrderByCreatedAtDesc();
-    List<Order> findByStatusOrderByCreatedAtDesc(Order.Status status);
+    // admin detail / zmena stavu – stejny fetch plan
+    @EntityGraph(attributePaths = {"owner", "items", "items.product"})
+    Optional<Order> findWithItemsById(Long id);
 
-    List<Order> findByOwner_UsernameAndStatusOrderByCreatedAtDesc(String ownerUsername, Order.Status status);
+    // druhy krok strankovani: objednavky stranky vcetne polozek a produktu jednim dotazem
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    List<Order> findAllWithItemsByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,9 @@
+package cz.osu.opr3_backend.model.repo;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // keyset stranka klicu objednavek (createdAt desc, id desc) vyhovujicich filtru
+    List<OrderCursor> findPageKeys(OrderFilter filter, OrderCursor after, int limit);
+}
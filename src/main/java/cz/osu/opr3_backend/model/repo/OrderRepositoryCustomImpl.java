@@ -0,0 +1,67 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset stránkování: místo OFFSET se pokračuje za posledním {@code (createdAt, id)},
+ * takže každá stránka je jeden průchod indexem bez ohledu na to, jak daleko v seznamu je.
+ * S filtrem stavu jde dotaz přes {@code ix_orders_owner_status_created} / {@code ix_orders_status_created},
+ * bez něj přes {@code ix_orders_owner_created} / {@code ix_orders_created}.
+ */
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<OrderCursor> findPageKeys(OrderFilter filter, OrderCursor after, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Order> o = cq.from(Order.class);
+
+        Path<Instant> createdAt = o.get("createdAt");
+        Path<Long> id = o.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.ownerUsername() != null) {
+            where.add(cb.equal(o.get("owner").get("username"), filter.ownerUsername()));
+        }
+        if (filter.status() != null) {
+            where.add(cb.equal(o.get("status"), filter.status()));
+        }
+        if (filter.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(createdAt, filter.from()));
+        }
+        if (filter.to() != null) {
+            where.add(cb.lessThan(createdAt, filter.to()));
+        }
+        if (after != null) {
+            where.add(cb.or(
+                    cb.lessThan(createdAt, after.createdAt()),
+                    cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))
+            ));
+        }
+
+        cq.multiselect(createdAt, id)
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return em.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(t -> new OrderCursor(t.get(0, Instant.class), t.get(1, Long.class)))
+                .toList();
+    }
+}
@@ -1,18 +1,65 @@
 package cz.osu.opr3_backend.model.repo;
 
 import cz.osu.opr3_backend.model.entity.Product;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     List<Product> findByCategory(Product.Category category);
 
-    List<Product> findByNameContainingIgnoreCase(String q);
+    Page<Product> findByCategory(Product.Category category, Pageable pageable);
 
-    List<Product> findByCategoryAndNameContainingIgnoreCase(
-            Product.Category category,
-            String q
-    );
+    List<Product> findByFlashSaleTrue();
+
+    // skladem (kandidati pro kompatibilni dily)
+    List<Product> findByIdInAndStockGreaterThanOrderByPriceAsc(Collection<Long> ids, Integer stock);
+
+    List<Product> findByCategoryAndStockGreaterThanOrderByPriceAsc(Product.Category category, Integer stock);
+
+    // atomicky odpis skladu – 0 = nedostatek, produkt neexistuje nebo ma sklad ve slotech; @Version se nezvysuje
+    @Modifying(flushAutomatically = true)
+    @Query("update Product p set p.stock = p.stock - :qty " +
+            "where p.id = :id and p.stock >= :qty and (p.stockShards is null or p.stockShards = 0)")
+    int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // vraceni kusu (nevyuzity podil flash-sale) – 0 = produkt neexistuje nebo ma sklad ve slotech
+    @Modifying(flushAutomatically = true)
+    @Query("update Product p set p.stock = p.stock + :qty " +
+            "where p.id = :id and (p.stockShards is null or p.stockShards = 0)")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    @Query("select p.stock from Product p where p.id = :id")
+    Integer findStockById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findForUpdateById(@Param("id") Long id);
+
+    // produkty s rozdelenym skladem (id -> pocet slotu)
+    @Query("select p.id as id, p.stockShards as stockShards from Product p where p.id in :ids and p.stockShards > 0")
+    List<ShardCount> findShardCountsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // cache souctu slotu do product.stock (jen kde se zmenil)
+    @Modifying
+    @Query("update Product p set p.stock = " +
+            "(select coalesce(sum(s.stock), 0) from ProductStockShard s where s.product = p) " +
+            "where p.stockShards > 0 and p.stock <> " +
+            "(select coalesce(sum(s2.stock), 0) from ProductStockShard s2 where s2.product = p)")
+    int refreshShardedStock();
+
+    interface ShardCount {
+        Long getId();
+        Integer getStockShards();
+    }
 }
@@ -0,0 +1,12 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    // katalog filtrovany podle atributu ve spec (vyhodnocuje DB nad jsonb indexy); ids = vysledky fulltextu, null = bez omezeni
+    List<Product> findBySpec(Product.Category category, Collection<Long> ids, List<SpecFilter> filters);
+}
@@ -0,0 +1,95 @@
+package cz.osu.opr3_backend.model.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cz.osu.opr3_backend.model.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rovnost jde přes {@code spec @> '{...}'} (GIN index {@code ix_product_spec_gin}),
+ * rozsahy přes porovnání {@code spec -> 'attr'} jako jsonb čísla (btree indexy na tdp/wattage).
+ * Název atributu je ověřený v {@link SpecFilter}, proto může jít do SQL jako literál –
+ * jen tak umí Postgres použít výrazový index.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Product> findBySpec(Product.Category category, Collection<Long> ids, List<SpecFilter> filters) {
+        StringBuilder sql = new StringBuilder("select p.* from product p where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (category != null) {
+            sql.append(" and p.category = :category");
+            params.put("category", category.name());
+        }
+        if (ids != null) {
+            sql.append(" and p.id in (:ids)");
+            params.put("ids", ids);
+        }
+
+        int i = 0;
+        for (SpecFilter f : filters) {
+            String param = "f" + i++;
+            String path = "p.spec -> '" + f.attribute() + "'";
+
+            if (f.op() == SpecFilter.Op.EQ) {
+                BigDecimal num = f.numericValue();
+                if (num != null) {
+                    // cislo muze byt ve spec ulozene jako number i jako string
+                    sql.append(" and (p.spec @> cast(:").append(param).append("n as jsonb)")
+                            .append(" or p.spec @> cast(:").append(param).append("s as jsonb))");
+                    params.put(param + "n", containment(f.attribute(), num));
+                    params.put(param + "s", containment(f.attribute(), f.value()));
+                } else {
+                    sql.append(" and p.spec @> cast(:").append(param).append(" as jsonb)");
+                    params.put(param, containment(f.attribute(), f.value()));
+                }
+                continue;
+            }
+
+            sql.append(" and jsonb_typeof(").append(path).append(") = 'number'")
+                    .append(" and ").append(path).append(' ').append(operator(f.op()))
+                    .append(" cast(:").append(param).append(" as jsonb)");
+            params.put(param, f.numericValue().toPlainString());
+        }
+
+        sql.append(" order by p.id");
+
+        Query query = em.createNativeQuery(sql.toString(), Product.class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private String containment(String attribute, Object value) {
+        ObjectNode node = objectMapper.createObjectNode();
+        if (value instanceof BigDecimal num) node.put(attribute, num);
+        else node.put(attribute, String.valueOf(value));
+        return node.toString();
+    }
+
+    private static String operator(SpecFilter.Op op) {
+        return switch (op) {
+            case GT -> ">";
+            case GTE -> ">=";
+            case LT -> "<";
+            case LTE -> "<=";
+            case EQ -> "=";
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package cz.osu.opr3_backend.model.repo;
+
+import cz.osu.opr3_backend.model.entity.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    // odpis z jednoho slotu – 0 = ve slotu neni dost
+    @Modifying(flushAutomatically = true)
+    @Query("update ProductStockShard s set s.stock = s.stock - :qty " +
+            "where s.product.id = :productId and s.slot = :slot and s.stock >= :qty")
+    int decrementSlot(@Param("productId") Long productId, @Param("slot") int slot, @Param("qty") int qty);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ProductStockShard s set s.stock = s.stock + :qty " +
+            "where s.product.id = :productId and s.slot = :slot")
+    int incrementSlot(@Param("productId") Long productId, @Param("slot") int slot, @Param("qty") int qty);
+
+    // zamek vsech slotu vzdy ve stejnem poradi (podle slotu)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductStockShard s where s.product.id = :productId order by s.slot")
+    List<ProductStockShard> lockAllByProductId(@Param("productId") Long productId);
+
+    @Query("select coalesce(sum(s.stock), 0) from ProductStockShard s where s.product.id = :productId")
+    int sumStockByProductId(@Param("productId") Long productId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductStockShard s where s.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
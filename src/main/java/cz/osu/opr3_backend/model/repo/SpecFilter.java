@@ -0,0 +1,70 @@
+package cz.osu.opr3_backend.model.repo;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+/**
+ * Filtr nad atributem ze {@code Product.spec}, např. {@code spec.socket=AM5} nebo {@code spec.wattage>=750}.
+ * V URL query se {@code spec.wattage>=750} rozpadne na klíč {@code spec.wattage>} a hodnotu {@code 750},
+ * proto se operátor hledá na konci klíče i na začátku hodnoty.
+ */
+public record SpecFilter(String attribute, Op op, String value) {
+
+    public static final String PARAM_PREFIX = "spec.";
+
+    private static final Pattern ATTRIBUTE = Pattern.compile("[A-Za-z0-9_]{1,64}");
+
+    public enum Op { EQ, GT, GTE, LT, LTE }
+
+    public SpecFilter {
+        if (attribute == null || !ATTRIBUTE.matcher(attribute).matches()) {
+            throw new IllegalArgumentException("Invalid spec attribute: " + attribute);
+        }
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing value for spec." + attribute);
+        }
+        if (op != Op.EQ && numeric(value) == null) {
+            throw new IllegalArgumentException("spec." + attribute + " needs a numeric value for " + op);
+        }
+    }
+
+    public static SpecFilter parse(String param, String rawValue) {
+        String key = param.substring(PARAM_PREFIX.length()).trim();
+        String value = rawValue == null ? "" : rawValue.trim();
+
+        Op op = Op.EQ;
+        if (key.endsWith(">")) {
+            key = key.substring(0, key.length() - 1);
+            op = Op.GTE;
+        } else if (key.endsWith("<")) {
+            key = key.substring(0, key.length() - 1);
+            op = Op.LTE;
+        } else if (value.startsWith(">=")) {
+            value = value.substring(2);
+            op = Op.GTE;
+        } else if (value.startsWith("<=")) {
+            value = value.substring(2);
+            op = Op.LTE;
+        } else if (value.startsWith(">")) {
+            value = value.substring(1);
+            op = Op.GT;
+        } else if (value.startsWith("<")) {
+            value = value.substring(1);
+            op = Op.LT;
+        }
+
+        return new SpecFilter(key, op, value.trim());
+    }
+
+    public BigDecimal numericValue() {
+        return numeric(value);
+    }
+
+    private static BigDecimal numeric(String v) {
+        try {
+            return new BigDecimal(v.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.service.rules.BuildRuleDefinition;
+import cz.osu.opr3_backend.service.rules.BuildRuleEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Udržuje na {@link Build} agregáty (kusy podle kategorie, součet TDP, sockety CPU/MB, výkon PSU,
+ * cena), aby limity a pravidla šly vyhodnotit bez procházení položek.
+ * <p>
+ * Hodnoty produktu se při přidání uloží na {@link BuildItem} (snapshot) a agregáty se posouvají
+ * o delta podle snapshotu – přidání i odebrání je O(1) a pozdější změna produktu (kategorie,
+ * spec, cena) už spočtené hodnoty nerozhodí.
+ */
+@Component
+@RequiredArgsConstructor
+public class BuildAggregator {
+
+    private static final int CATEGORIES = Product.Category.values().length;
+
+    private final ProductSpecCache productSpecCache;
+    private final BuildRuleEngine buildRuleEngine;
+
+    // agregaty jsou spocitane (stare buildy a docasne kopie v pameti je nemaji)
+    public static boolean hasAggregates(Build build) {
+        return build.getCategoryQty() != null
+                && build.getCategoryQty().length == CATEGORIES
+                && build.getTotalTdpW() != null
+                && build.getTotalPrice() != null;
+    }
+
+    // hodnoty produktu pro agregaty, uklada se na polozku pri pridani
+    public void snapshot(BuildItem item, Product product) {
+        ProductSpec spec = productSpecCache.get(product);
+        BuildRuleDefinition power = buildRuleEngine.powerBudget();
+        Product.Category c = product.getCategory();
+
+        item.setCategory(c);
+        item.setUnitPrice(product.getPrice());
+        item.setSocket(c == Product.Category.CPU || c == Product.Category.MB ? spec.socket() : null);
+        // zatez a zdroj podle atributu z pravidla POWER_BUDGET (tdp / wattage)
+        item.setTdpW(power != null && power.loadCategories().contains(c) ? spec.integer(power.loadAttribute()) : null);
+        item.setWattageW(power != null && c == power.supplyCategory() ? spec.integer(power.supplyAttribute()) : null);
+    }
+
+    // stary build (polozky bez snapshotu) -> jednorazovy prepocet
+    public void ensure(Build build) {
+        if (!hasAggregates(build)) recompute(build);
+    }
+
+    // kusy podle kategorie po pridani qty kusu polozky; build se nemeni (kontrola limitu pred zapisem)
+    public int[] withAdded(Build build, BuildItem item, int qty) {
+        ensure(build);
+        int[] counts = Arrays.copyOf(build.getCategoryQty(), CATEGORIES);
+        counts[item.getCategory().ordinal()] += qty;
+        return counts;
+    }
+
+    // polozka uz je pridana / ma zvysene mnozstvi, agregaty se posunou o qty kusu
+    // (ensure musi probehnout pred zmenou polozky, jinak by prepocet kusy zapocital dvakrat)
+    public void added(Build build, BuildItem item, int qty) {
+        boolean first = build.getCategoryQty()[item.getCategory().ordinal()] == 0;
+        build.setCategoryQty(withAdded(build, item, qty));
+        shift(build, item, qty);
+        if (first) setFirst(build, item.getCategory(), item);
+    }
+
+    // polozka uz je z build.getItems() odebrana
+    public void removed(Build build, BuildItem item) {
+        if (!hasAggregates(build) || item.getCategory() == null) {
+            recompute(build);
+            return;
+        }
+        int[] counts = Arrays.copyOf(build.getCategoryQty(), CATEGORIES);
+        int idx = item.getCategory().ordinal();
+        counts[idx] = Math.max(0, counts[idx] - item.getQuantity());
+        build.setCategoryQty(counts);
+        shift(build, item, -item.getQuantity());
+
+        if (counts[idx] == 0) {
+            setFirst(build, item.getCategory(), null);
+        } else if (isFirstTracked(item.getCategory())) {
+            // dalsi kus stejne kategorie zustava (jen pri limitu > 1) – prvni zbyla polozka, bez nacitani produktu
+            build.getItems().stream()
+                    .filter(bi -> bi.getCategory() == item.getCategory())
+                    .findFirst()
+                    .ifPresent(bi -> setFirst(build, item.getCategory(), bi));
+        }
+    }
+
+    public void recompute(Build build) {
+        build.setCategoryQty(new int[CATEGORIES]);
+        build.setTotalTdpW(0);
+        build.setTotalPrice(BigDecimal.ZERO);
+        build.setCpuSocket(null);
+        build.setMbSocket(null);
+        build.setPsuWattageW(null);
+
+        for (BuildItem bi : build.getItems()) {
+            if (bi.getCategory() == null) snapshot(bi, bi.getProduct());
+            int idx = bi.getCategory().ordinal();
+            if (build.getCategoryQty()[idx] == 0) setFirst(build, bi.getCategory(), bi);
+            build.getCategoryQty()[idx] += bi.getQuantity();
+            shift(build, bi, bi.getQuantity());
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private static void shift(Build build, BuildItem item, int qty) {
+        if (item.getTdpW() != null) {
+            build.setTotalTdpW(Math.max(0, build.getTotalTdpW() + item.getTdpW() * qty));
+        }
+        if (item.getUnitPrice() != null) {
+            BigDecimal total = build.getTotalPrice().add(item.getUnitPrice().multiply(BigDecimal.valueOf(qty)));
+            build.setTotalPrice(total.signum() < 0 ? BigDecimal.ZERO : total);
+        }
+    }
+
+    private boolean isFirstTracked(Product.Category c) {
+        BuildRuleDefinition power = buildRuleEngine.powerBudget();
+        return c == Product.Category.CPU || c == Product.Category.MB || (power != null && c == power.supplyCategory());
+    }
+
+    // socket / vykon zdroje se bere z prvni polozky kategorie (stejne jako pravidla nad polozkami)
+    private void setFirst(Build build, Product.Category c, BuildItem item) {
+        if (c == Product.Category.CPU) build.setCpuSocket(item != null ? item.getSocket() : null);
+        if (c == Product.Category.MB) build.setMbSocket(item != null ? item.getSocket() : null);
+
+        BuildRuleDefinition power = buildRuleEngine.powerBudget();
+        if (power != null && c == power.supplyCategory()) build.setPsuWattageW(item != null ? item.getWattageW() : null);
+    }
+}
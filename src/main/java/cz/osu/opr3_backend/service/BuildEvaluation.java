@@ -0,0 +1,47 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.web.dto.build.BuildSummaryResponse;
+import cz.osu.opr3_backend.web.dto.build.BuildValidationResponse;
+import cz.osu.opr3_backend.web.dto.build.CompatibilityReportResponse;
+
+import java.util.List;
+
+/**
+ * Výsledek jednoho vyhodnocení buildu. Summary, validace, kompatibilita i checkout
+ * čtou ze stejné instance, build se tak načítá a prochází jen jednou.
+ */
+public record BuildEvaluation(
+        Build build,
+        int[] qtyByCategory,
+        int distinctItemsCount,
+        int totalQuantity,
+        CompatibilityReportResponse compatibility,
+        BuildValidationResponse validation
+) {
+
+    public int qty(Product.Category category) {
+        return qtyByCategory[category.ordinal()];
+    }
+
+    public BuildSummaryResponse summary() {
+        List<String> filteredWarnings = compatibility.warnings().stream()
+                .filter(w -> !w.equals("No motherboard in build"))
+                .filter(w -> !w.equals("No PSU in build"))
+                .toList();
+
+        return new BuildSummaryResponse(
+                build.getId(),
+                build.getName(),
+                distinctItemsCount,
+                totalQuantity,
+                compatibility.compatible(),
+                validation.ok(),
+                compatibility.estimatedLoadW() != null ? compatibility.estimatedLoadW() : 0,
+                compatibility.psuWattageW(),
+                validation.reasons(),
+                filteredWarnings
+        );
+    }
+}
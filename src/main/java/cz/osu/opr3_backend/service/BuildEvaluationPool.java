@@ -0,0 +1,49 @@
+package cz.osu.opr3_backend.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Omezený pool pro paralelní vyhodnocení buildů (batch endpoint).
+// Záměrně to není Executor bean, aby nepřebil výchozí applicationTaskExecutor Spring Bootu.
+@Component
+public class BuildEvaluationPool implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    public BuildEvaluationPool(
+            @Value("${app.build.batch.parallelism:4}") int parallelism,
+            @Value("${app.build.batch.queue-capacity:256}") int queueCapacity
+    ) {
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "build-eval-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // plná fronta -> počítá volající vlákno, nic se nezahazuje
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,368 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.security.SecurityUtils;
+import cz.osu.opr3_backend.service.rules.BuildRuleDefinition;
+import cz.osu.opr3_backend.service.rules.BuildRuleEngine;
+import cz.osu.opr3_backend.web.dto.ProductResponse;
+import cz.osu.opr3_backend.web.dto.build.BuildOptimizeRequest;
+import cz.osu.opr3_backend.web.dto.build.BuildOptimizeResponse;
+import cz.osu.opr3_backend.web.dto.build.CompatibilityReportResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hledání nejlevnějšího (nebo nejvýkonnějšího) kompatibilního buildu z aktuálního katalogu skladem.
+ * Branch-and-bound přes kategorie, prořezává se podle rozpočtu, socketu a výkonu zdroje;
+ * horní úrovně stromu se rozdělí do fork/join úloh. Po vypršení limitu se vrátí nejlepší dosud nalezené řešení.
+ * Kandidát na výsledek se vždy ověří stejným {@link BuildRuleEngine} jako {@code checkCompatibility}.
+ */
+@Service
+public class BuildOptimizerService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BuildOptimizerService.class);
+
+    // do teto hloubky se vetve forkuji, nize uz se prochazi sekvencne
+    private static final int SPLIT_DEPTH = 2;
+
+    private final ProductRepository productRepository;
+    private final ProductSpecCache productSpecCache;
+    private final BuildRuleEngine buildRuleEngine;
+
+    private final ForkJoinPool pool;
+    private final int defaultTimeLimitMs;
+    private final int maxTimeLimitMs;
+    private final int maxCandidatesPerCategory;
+
+    public BuildOptimizerService(
+            ProductRepository productRepository,
+            ProductSpecCache productSpecCache,
+            BuildRuleEngine buildRuleEngine,
+            @Value("${app.build.optimizer.parallelism:0}") int parallelism,
+            @Value("${app.build.optimizer.time-limit-ms:2000}") int defaultTimeLimitMs,
+            @Value("${app.build.optimizer.max-time-limit-ms:10000}") int maxTimeLimitMs,
+            @Value("${app.build.optimizer.max-candidates-per-category:500}") int maxCandidatesPerCategory
+    ) {
+        this.productRepository = productRepository;
+        this.productSpecCache = productSpecCache;
+        this.buildRuleEngine = buildRuleEngine;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.defaultTimeLimitMs = defaultTimeLimitMs;
+        this.maxTimeLimitMs = maxTimeLimitMs;
+        this.maxCandidatesPerCategory = maxCandidatesPerCategory;
+    }
+
+    public BuildOptimizeResponse optimize(BuildOptimizeRequest req) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+        long started = System.nanoTime();
+
+        BuildOptimizeRequest.Objective objective =
+                req.objective() != null ? req.objective() : BuildOptimizeRequest.Objective.CHEAPEST;
+        int timeLimitMs = Math.min(req.timeLimitMs() != null ? req.timeLimitMs() : defaultTimeLimitMs, maxTimeLimitMs);
+
+        List<Product.Category> categories = new ArrayList<>(new LinkedHashSet<>(req.requiredCategories()));
+        // nejdriv dily, ktere omezuji ostatni (socket), zdroj az na konec, kdy je znama zatez
+        categories.sort(Comparator.comparingInt(BuildOptimizerService::searchOrder));
+
+        long budgetCents = cents(req.budget());
+
+        Candidate[][] candidates = new Candidate[categories.size()][];
+        for (int i = 0; i < categories.size(); i++) {
+            candidates[i] = candidates(categories.get(i), req, budgetCents);
+            if (candidates[i].length == 0) {
+                log.info("AUDIT BUILD_OPTIMIZE actor={} budget={} categories={} found=false reason=no_candidates category={}",
+                        actor, req.budget(), categories, categories.get(i));
+                return new BuildOptimizeResponse(false, false, null, List.of(), null, 0, elapsedMs(started));
+            }
+        }
+
+        BuildRuleDefinition power = buildRuleEngine.powerBudget();
+        Search search = new Search(
+                categories,
+                candidates,
+                budgetCents,
+                objective,
+                power != null && power.reserveW() != null ? power.reserveW() : 0,
+                System.nanoTime() + timeLimitMs * 1_000_000L
+        );
+
+        pool.invoke(search.task(0, new Candidate[categories.size()], 0, 0, null, 0));
+
+        Solution best = search.best.get();
+        long nodes = search.nodes.sum();
+
+        if (best == null) {
+            log.info("AUDIT BUILD_OPTIMIZE actor={} budget={} categories={} found=false timedOut={} nodes={} elapsedMs={}",
+                    actor, req.budget(), categories, search.timedOut, nodes, elapsedMs(started));
+            return new BuildOptimizeResponse(false, search.timedOut, null, List.of(), null, nodes, elapsedMs(started));
+        }
+
+        Build build = hypotheticalBuild(best.picks());
+        CompatibilityReportResponse compatibility = buildRuleEngine.evaluate(build).compatibility();
+        BigDecimal total = BigDecimal.valueOf(best.cost(), 2);
+
+        log.info("AUDIT BUILD_OPTIMIZE actor={} budget={} categories={} objective={} found=true totalPrice={} timedOut={} nodes={} elapsedMs={}",
+                actor, req.budget(), categories, objective, total, search.timedOut, nodes, elapsedMs(started));
+
+        return new BuildOptimizeResponse(
+                true,
+                search.timedOut,
+                total,
+                Arrays.stream(best.picks()).map(c -> ProductResponse.of(c.product())).toList(),
+                compatibility,
+                nodes,
+                elapsedMs(started)
+        );
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    // ----------------------------
+    // Search
+    // ----------------------------
+
+    private record Candidate(Product product, long priceCents, String socket, int tdp, Integer wattage) {}
+
+    private record Solution(Candidate[] picks, long cost, int score) {}
+
+    private final class Search {
+
+        final List<Product.Category> categories;
+        final Candidate[][] candidates;
+        final long budget;
+        final Goal goal;
+        final int reserveW;
+        final long deadline;
+
+        // suffix: nejnizsi mozna cena / nejvyssi mozne skore zbylych kategorii
+        final long[] minRemainingCost;
+        final int[] maxRemainingScore;
+
+        final AtomicReference<Solution> best = new AtomicReference<>();
+        final LongAdder nodes = new LongAdder();
+        volatile boolean timedOut;
+
+        Search(List<Product.Category> categories, Candidate[][] candidates, long budget,
+               BuildOptimizeRequest.Objective objective, int reserveW, long deadline) {
+            this.categories = categories;
+            this.candidates = candidates;
+            this.budget = budget;
+            this.goal = new Goal(objective);
+            this.reserveW = reserveW;
+            this.deadline = deadline;
+
+            int n = categories.size();
+            this.minRemainingCost = new long[n + 1];
+            this.maxRemainingScore = new int[n + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                long min = Long.MAX_VALUE;
+                int max = 0;
+                for (Candidate c : candidates[i]) {
+                    min = Math.min(min, c.priceCents());
+                    max = Math.max(max, score(i, c));
+                }
+                minRemainingCost[i] = minRemainingCost[i + 1] + min;
+                maxRemainingScore[i] = maxRemainingScore[i + 1] + max;
+            }
+        }
+
+        RecursiveAction task(int depth, Candidate[] picks, long cost, int score, String socket, int load) {
+            return new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    if (depth >= SPLIT_DEPTH || depth >= categories.size()) {
+                        dfs(depth, picks, cost, score, socket, load);
+                        return;
+                    }
+
+                    List<RecursiveAction> subtasks = new ArrayList<>();
+                    for (Candidate c : candidates[depth]) {
+                        Step step = step(depth, c, cost, score, socket, load);
+                        if (step == Step.STOP) break;
+                        if (step == Step.SKIP) continue;
+
+                        Candidate[] next = picks.clone();
+                        next[depth] = c;
+                        subtasks.add(task(depth + 1, next, cost + c.priceCents(), score + score(depth, c),
+                                socketAfter(depth, c, socket), load + score(depth, c)));
+                    }
+                    invokeAll(subtasks);
+                }
+            };
+        }
+
+        void dfs(int depth, Candidate[] picks, long cost, int score, String socket, int load) {
+            if (timeUp()) return;
+            nodes.increment();
+
+            if (depth == categories.size()) {
+                offer(picks.clone(), cost, score);
+                return;
+            }
+
+            for (Candidate c : candidates[depth]) {
+                Step step = step(depth, c, cost, score, socket, load);
+                if (step == Step.STOP) break;
+                if (step == Step.SKIP) continue;
+
+                picks[depth] = c;
+                dfs(depth + 1, picks, cost + c.priceCents(), score + score(depth, c),
+                        socketAfter(depth, c, socket), load + score(depth, c));
+                picks[depth] = null;
+
+                if (timedOut) return;
+            }
+        }
+
+        private enum Step { TAKE, SKIP, STOP }
+
+        // kandidati jsou serazeni podle ceny -> prekroceni rozpoctu / bound na cenu ukonci celou uroven
+        Step step(int depth, Candidate c, long cost, int score, String socket, int load) {
+            long newCost = cost + c.priceCents();
+            if (newCost + minRemainingCost[depth + 1] > budget) return Step.STOP;
+
+            Solution b = best.get();
+            if (b != null) {
+                if (goal.cheapest() && newCost + minRemainingCost[depth + 1] >= b.cost()) return Step.STOP;
+                if (!goal.cheapest()
+                        && score + score(depth, c) + maxRemainingScore[depth + 1] < b.score()) return Step.SKIP;
+            }
+
+            Product.Category category = categories.get(depth);
+            if ((category == Product.Category.CPU || category == Product.Category.MB)
+                    && socket != null && c.socket() != null && !socket.equalsIgnoreCase(c.socket())) {
+                return Step.SKIP;
+            }
+            if (category == Product.Category.PSU && c.wattage() != null && load > 0
+                    && c.wattage() < load + reserveW) {
+                return Step.SKIP;
+            }
+            return Step.TAKE;
+        }
+
+        void offer(Candidate[] picks, long cost, int score) {
+            Solution current = best.get();
+            if (current != null && !goal.better(cost, score, current)) return;
+
+            // definitivni kontrola stejnymi pravidly jako checkCompatibility
+            if (!buildRuleEngine.evaluate(hypotheticalBuild(picks)).compatibility().compatible()) return;
+
+            Solution candidate = new Solution(picks, cost, score);
+            best.accumulateAndGet(candidate, (prev, next) ->
+                    prev == null || goal.better(next.cost(), next.score(), prev) ? next : prev);
+        }
+
+        boolean timeUp() {
+            if (timedOut) return true;
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                return true;
+            }
+            return false;
+        }
+
+        // TDP CPU a GPU = zatez pro zdroj i skore pro PERFORMANCE
+        int score(int depth, Candidate c) {
+            Product.Category category = categories.get(depth);
+            return (category == Product.Category.CPU || category == Product.Category.GPU) ? c.tdp() : 0;
+        }
+
+        String socketAfter(int depth, Candidate c, String socket) {
+            Product.Category category = categories.get(depth);
+            if (socket == null && (category == Product.Category.CPU || category == Product.Category.MB)) {
+                return c.socket();
+            }
+            return socket;
+        }
+    }
+
+    private record Goal(BuildOptimizeRequest.Objective objective) {
+        boolean cheapest() {
+            return objective == BuildOptimizeRequest.Objective.CHEAPEST;
+        }
+
+        boolean better(long cost, int score, Solution than) {
+            if (cheapest()) return cost < than.cost();
+            return score > than.score() || (score == than.score() && cost < than.cost());
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Candidate[] candidates(Product.Category category, BuildOptimizeRequest req, long budgetCents) {
+        List<Candidate> res = new ArrayList<>();
+        for (Product p : productRepository.findByCategoryAndStockGreaterThanOrderByPriceAsc(category, 0)) {
+            if (res.size() >= maxCandidatesPerCategory) break;
+
+            long price = cents(p.getPrice());
+            if (price > budgetCents) break;
+
+            ProductSpec spec = productSpecCache.get(p);
+            if ((category == Product.Category.CPU || category == Product.Category.MB)
+                    && req.preferredSocket() != null && spec.socket() != null
+                    && !req.preferredSocket().equalsIgnoreCase(spec.socket())) {
+                continue;
+            }
+            if (category == Product.Category.GPU && req.minGpuTdp() != null
+                    && (spec.tdp() == null || spec.tdp() < req.minGpuTdp())) {
+                continue;
+            }
+
+            res.add(new Candidate(p, price, spec.socket(), spec.tdp() != null ? spec.tdp() : 0, spec.wattage()));
+        }
+        return res.toArray(new Candidate[0]);
+    }
+
+    private static Build hypotheticalBuild(Candidate[] picks) {
+        Build build = Build.builder().name("optimizer").build();
+        for (Candidate c : picks) {
+            build.getItems().add(BuildItem.builder()
+                    .build(build)
+                    .product(c.product())
+                    .quantity(1)
+                    .build());
+        }
+        return build;
+    }
+
+    private static int searchOrder(Product.Category c) {
+        return switch (c) {
+            case CPU -> 0;
+            case MB -> 1;
+            case GPU -> 2;
+            case PSU -> 9;
+            default -> 5;
+        };
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+}
@@ -1,11 +1,10 @@
 package cz.osu.opr3_backend.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import cz.osu.opr3_backend.model.entity.*;
 import cz.osu.opr3_backend.model.repo.*;
 import cz.osu.opr3_backend.security.CurrentUser;
 import cz.osu.opr3_backend.security.SecurityUtils;
+import cz.osu.opr3_backend.service.rules.BuildRuleEngine;
 import cz.osu.opr3_backend.web.dto.build.*;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -16,7 +15,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,13 +37,14 @@ public class BuildService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
-
-    private static final int MAX_CPU = 1;
-    private static final int MAX_GPU = 1;
-    private static final int MAX_PSU = 1;
-    private static final int MAX_CASE = 1;
-    private static final int MAX_RAM = 4;
+    private final BuildRuleEngine buildRuleEngine;
+    private final BuildEvaluationPool buildEvaluationPool;
+    private final ProductAttributeIndex productAttributeIndex;
+    private final BuildAggregator buildAggregator;
+    private final StockService stockService;
+    private final FlashSaleLedger flashSaleLedger;
+    private final ProductCache productCache;
+    private final InvalidationBus invalidationBus;
 
     // ----------------------------
     // Helpers
@@ -49,11 +58,12 @@ public class BuildService {
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
-    private Build getMyBuild(Long id) {
+    // build vcetne vlastnika, polozek a produktu jednim dotazem
+    private Build getMyBuildWithItems(Long id) {
         String username = CurrentUser.username();
         if (username == null) throw new UnauthorizedException("Not authenticated");
 
-        return buildRepository.findByIdAndOwner_Username(id, username)
+        return buildRepository.findWithItemsByIdAndOwner_Username(id, username)
                 .orElseThrow(() -> new NotFoundException("Build " + id + " not found"));
     }
 
@@ -69,6 +79,7 @@ public class BuildService {
                 .name(req.name())
                 .owner(owner)
                 .build();
+        buildAggregator.recompute(b);
 
         Build saved = buildRepository.save(b);
 
@@ -78,22 +89,27 @@ public class BuildService {
         return saved;
     }
 
-    public List<Build> list() {
+    @Transactional(readOnly = true)
+    public List<BuildResponse> list() {
         String actor = SecurityUtils.usernameOrAnonymous();
         String username = CurrentUser.username();
         if (username == null) throw new UnauthorizedException("Not authenticated");
 
-        List<Build> res = buildRepository.findAllByOwner_UsernameOrderByCreatedAtDesc(username);
+        List<BuildResponse> res = buildRepository.findAllByOwner_UsernameOrderByCreatedAtDesc(username)
+                .stream()
+                .map(BuildResponse::of)
+                .toList();
 
         log.info("AUDIT BUILD_LIST actor={} owner={} count={}", actor, username, res.size());
         return res;
     }
 
-    public Build get(Long id) {
+    @Transactional(readOnly = true)
+    public BuildResponse get(Long id) {
         String actor = SecurityUtils.usernameOrAnonymous();
-        Build b = getMyBuild(id);
+        Build b = getMyBuildWithItems(id);
         log.info("AUDIT BUILD_GET actor={} buildId={} owner={}", actor, b.getId(), b.getOwner().getUsername());
-        return b;
+        return BuildResponse.of(b);
     }
 
     // ----------------------------
@@ -103,7 +119,7 @@ public class BuildService {
     @Transactional
     public Build addItem(Long buildId, BuildItemAddRequest req) {
         String actor = SecurityUtils.usernameOrAnonymous();
-        Build build = getMyBuild(buildId);
+        Build build = getMyBuildWithItems(buildId);
 
         if (req.quantity() <= 0) {
             log.warn("AUDIT BUILD_ADD_ITEM_DENIED actor={} buildId={} reason=qty<=0 qty={}",
@@ -111,24 +127,26 @@ public class BuildService {
             throw new IllegalArgumentException("Quantity must be > 0");
         }
 
-        Product product = productRepository.findById(req.productId())
-                .orElseThrow(() -> new NotFoundException("Product " + req.productId() + " not found"));
+        buildAggregator.ensure(build);
 
         for (BuildItem bi : build.getItems()) {
-            if (bi.getProduct().getId().equals(product.getId())) {
+            if (bi.getProduct().getId().equals(req.productId())) {
+                Product product = bi.getProduct();
                 int oldQty = bi.getQuantity();
                 int newQty = oldQty + req.quantity();
-                bi.setQuantity(newQty);
 
-                // limity (CPU/GPU/PSU/CASE max 1, RAM max 4)
+                // limity (CPU/GPU/PSU/CASE max 1, RAM max 4) – kontrola pred zmenou buildu
                 try {
-                    enforceCategoryLimitsOrThrow(build);
+                    enforceCategoryLimitsOrThrow(buildAggregator.withAdded(build, bi, req.quantity()));
                 } catch (BuildValidationException e) {
                     log.warn("AUDIT BUILD_ADD_ITEM_DENIED actor={} buildId={} productId={} reason={}",
                             actor, buildId, product.getId(), e.getReasons());
                     throw e;
                 }
 
+                bi.setQuantity(newQty);
+                buildAggregator.added(build, bi, req.quantity());
+                holdFlashSaleStock(buildId, product, req.quantity(), actor);
                 Build saved = buildRepository.save(build);
 
                 log.info("AUDIT BUILD_ADD_ITEM_MERGE actor={} buildId={} owner={} productId={} sku={} oldQty={} addQty={} newQty={}",
@@ -138,17 +156,24 @@ public class BuildService {
             }
         }
 
+        // produkt z cache – odpojena kopie staci jako reference pro novou polozku
+        Product product = productCache.get(req.productId()).product();
+
         // Nový Item
         BuildItem item = BuildItem.builder()
                 .build(build)
                 .product(product)
                 .quantity(req.quantity())
                 .build();
-
-        build.getItems().add(item);
+        buildAggregator.snapshot(item, product);
 
         try {
-            enforceCategoryLimitsOrThrow(build);
+            enforceCategoryLimitsOrThrow(buildAggregator.withAdded(build, item, req.quantity()));
+            build.getItems().add(item);
+            buildAggregator.added(build, item, req.quantity());
+            holdFlashSaleStock(buildId, product, req.quantity(), actor);
+            // polozku persistujeme primo; merge pres build by produkt z cache znovu nacital z DB
+            buildItemRepository.save(item);
             Build saved = buildRepository.save(build);
 
             log.info("AUDIT BUILD_ADD_ITEM_NEW actor={} buildId={} owner={} productId={} sku={} qty={}",
@@ -171,7 +196,7 @@ public class BuildService {
     @Transactional
     public void removeItem(Long buildId, Long itemId) {
         String actor = SecurityUtils.usernameOrAnonymous();
-        Build build = getMyBuild(buildId);
+        Build build = getMyBuildWithItems(buildId);
 
         BuildItem item = build.getItems().stream()
                 .filter(i -> i.getId().equals(itemId))
@@ -179,26 +204,55 @@ public class BuildService {
                 .orElseThrow(() -> new NotFoundException("BuildItem " + itemId + " not found in build " + buildId));
 
         build.getItems().remove(item);
+        buildAggregator.removed(build, item);
         buildItemRepository.delete(item);
         buildRepository.save(build);
+        flashSaleLedger.release(holderKey(buildId), item.getProduct().getId());
 
         log.info("AUDIT BUILD_REMOVE_ITEM actor={} buildId={} owner={} itemId={} productId={} sku={}",
                 actor, buildId, build.getOwner().getUsername(), itemId, item.getProduct().getId(), item.getProduct().getSku());
     }
 
+    // flash-sale produkt -> casove omezena rezervace kusu pro tento build
+    private void holdFlashSaleStock(Long buildId, Product product, int qty, String actor) {
+        try {
+            flashSaleLedger.hold(holderKey(buildId), product.getId(), qty);
+        } catch (OutOfStockException e) {
+            log.warn("AUDIT BUILD_ADD_ITEM_DENIED actor={} buildId={} productId={} reason=flash_sale_sold_out requested={} available={}",
+                    actor, buildId, product.getId(), e.getRequested(), e.getAvailable());
+            throw e;
+        }
+    }
+
+    private static String holderKey(Long buildId) {
+        return "build:" + buildId;
+    }
+
     // ----------------------------
     // Checkout
     // ----------------------------
 
     @Transactional
     public Order checkout(Long buildId) {
-        String actor = SecurityUtils.usernameOrAnonymous();
+        String username = CurrentUser.username();
+        if (username == null) throw new UnauthorizedException("Not authenticated");
+
+        return checkoutFor(username, buildId);
+    }
+
+    // checkout za daneho uzivatele – i mimo request vlakno (asynchronni checkout, viz CheckoutJobService)
+    @Transactional
+    public Order checkoutFor(String username, Long buildId) {
+        String actor = username;
+
+        Build build = buildRepository.findWithItemsByIdAndOwner_Username(buildId, username)
+                .orElseThrow(() -> new NotFoundException("Build " + buildId + " not found"));
+        BuildEvaluation evaluation = evaluate(build);
 
         // validate throws if blocked
-        validateBuildOrThrow(buildId);
+        requireValid(evaluation, actor);
 
-        Build build = getMyBuild(buildId);
-        User owner = currentUserEntity();
+        User owner = build.getOwner();
 
         if (build.getItems().isEmpty()) {
             log.warn("AUDIT BUILD_CHECKOUT_DENIED actor={} buildId={} owner={} reason=empty_build",
@@ -206,7 +260,7 @@ public class BuildService {
             throw new IllegalStateException("Build " + buildId + " is empty");
         }
 
-        // Kontrola skladu
+        // Rychla kontrola nad nactenym stavem; zavazny je az podmineny odpis nize
         for (BuildItem bi : build.getItems()) {
             Product p = bi.getProduct();
             int requested = bi.getQuantity();
@@ -225,6 +279,8 @@ public class BuildService {
 
         if (order.getItems() == null) order.setItems(new ArrayList<>());
 
+        Map<Long, Integer> qtyByProduct = new HashMap<>();
+
         for (BuildItem bi : build.getItems()) {
             Product p = bi.getProduct();
 
@@ -237,9 +293,21 @@ public class BuildService {
 
             order.getItems().add(oi);
 
-            // odebreme ze skladu
-            int current = (p.getStock() == null) ? 0 : p.getStock();
-            p.setStock(current - bi.getQuantity());
+            qtyByProduct.merge(p.getId(), bi.getQuantity(), Integer::sum);
+        }
+
+        // odebereme ze skladu: flash-sale produkty z rezervaci v pameti (do DB davkove po commitu),
+        // ostatni podminenym UPDATE po radcich; pri nedostatku rollback cele objednavky
+        try {
+            Map<Long, Integer> dbQty = flashSaleLedger.consume(holderKey(buildId), qtyByProduct);
+            stockService.decrement(dbQty);
+            // ostatni instance zahodi sklad z cache po commitu (NOTIFY se doruci az s nim)
+            productCache.invalidate(qtyByProduct.keySet());
+            invalidationBus.publish(InvalidationBus.EntityType.PRODUCT_STOCK, qtyByProduct.keySet());
+        } catch (OutOfStockException e) {
+            log.warn("AUDIT BUILD_CHECKOUT_DENIED actor={} buildId={} owner={} reason=out_of_stock productId={} requested={} available={}",
+                    actor, buildId, owner.getUsername(), e.getProductId(), e.getRequested(), e.getAvailable());
+            throw e;
         }
 
         BigDecimal total = BigDecimal.ZERO;
@@ -260,238 +328,157 @@ public class BuildService {
     // Compatibility / Validation / Summary
     // ----------------------------
 
+    @Transactional(readOnly = true)
     public CompatibilityReportResponse checkCompatibility(Long buildId) {
-        Build build = getMyBuild(buildId);
-
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
+        return evaluate(getMyBuildWithItems(buildId)).compatibility();
+    }
 
-        BuildItem cpuItem = findFirstByCategory(build, Product.Category.CPU);
-        BuildItem mbItem  = findFirstByCategory(build, Product.Category.MB);
-        BuildItem psuItem = findFirstByCategory(build, Product.Category.PSU);
+    @Transactional(readOnly = true)
+    public BuildValidationResponse validateBuild(Long buildId) {
+        return evaluate(getMyBuildWithItems(buildId)).validation();
+    }
 
-        String cpuSocket = null;
-        String mbSocket = null;
+    @Transactional(readOnly = true)
+    public void validateBuildOrThrow(Long buildId) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+        requireValid(evaluate(getMyBuildWithItems(buildId)), actor);
+    }
 
-        Integer cpuTdp = null;
-        int gpuTdpSum = 0;
-        Integer psuWattage = null;
+    @Transactional(readOnly = true)
+    public BuildSummaryResponse getBuildSummary(Long buildId) {
+        return evaluate(getMyBuildWithItems(buildId)).summary();
+    }
 
-        if (cpuItem != null) {
-            cpuSocket = readStringSpec(cpuItem.getProduct().getSpec(), "socket", warnings, "CPU");
-            cpuTdp = readIntSpec(cpuItem.getProduct().getSpec(), "tdp", warnings, "CPU");
-            if (cpuTdp != null) cpuTdp = cpuTdp * cpuItem.getQuantity();
-        } else {
-            warnings.add("No CPU in build");
-        }
+    /**
+     * Reporty pro více buildů najednou: jeden dotaz na buildy s položkami a produkty,
+     * vyhodnocení paralelně na omezeném poolu. Cizí/neexistující id vrací {@code found=false}.
+     */
+    public List<BuildReportResponse> evaluateBatch(List<Long> buildIds) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+        String username = CurrentUser.username();
+        if (username == null) throw new UnauthorizedException("Not authenticated");
 
-        if (mbItem != null) {
-            mbSocket = readStringSpec(mbItem.getProduct().getSpec(), "socket", warnings, "MB");
-        } else {
-            warnings.add("No motherboard in build");
-        }
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(buildIds);
 
-        if (cpuSocket != null && mbSocket != null && !cpuSocket.equalsIgnoreCase(mbSocket)) {
-            errors.add("CPU socket " + cpuSocket + " does not match MB socket " + mbSocket);
-        } else if (cpuSocket == null && cpuItem != null) {
-            warnings.add("CPU socket is missing in spec");
-        } else if (mbSocket == null && mbItem != null) {
-            warnings.add("MB socket is missing in spec");
-        }
+        Map<Long, Build> builds = buildRepository.findAllWithItemsByIdInAndOwner_Username(ids, username).stream()
+                .collect(Collectors.toMap(Build::getId, Function.identity(), (a, b) -> a));
 
-        if (psuItem != null) {
-            psuWattage = readIntSpec(psuItem.getProduct().getSpec(), "wattage", warnings, "PSU");
-            if (psuWattage == null) warnings.add("PSU wattage is missing in spec");
-        } else {
-            warnings.add("No PSU in build");
-        }
+        Map<Long, CompletableFuture<BuildEvaluation>> futures = builds.values().stream()
+                .collect(Collectors.toMap(
+                        Build::getId,
+                        b -> buildEvaluationPool.submit(() -> evaluate(b))
+                ));
 
-        for (BuildItem bi : build.getItems()) {
-            if (bi.getProduct().getCategory() == Product.Category.GPU) {
-                Integer tdp = readIntSpec(bi.getProduct().getSpec(), "tdp", warnings, "GPU");
-                if (tdp != null) gpuTdpSum += (tdp * bi.getQuantity());
-                else warnings.add("GPU TDP is missing in spec (productId " + bi.getProduct().getId() + ")");
+        List<BuildReportResponse> res = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CompletableFuture<BuildEvaluation> f = futures.get(id);
+            if (f == null) {
+                res.add(BuildReportResponse.notFound(id));
+                continue;
             }
+            BuildEvaluation ev = f.join();
+            res.add(new BuildReportResponse(id, true, ev.summary(), ev.compatibility(), ev.validation()));
         }
 
-        Integer estimated = null;
-        int reserve = 150;
+        log.info("AUDIT BUILD_EVALUATE_BATCH actor={} owner={} requested={} found={}",
+                actor, username, ids.size(), builds.size());
+        return res;
+    }
 
-        if (cpuTdp != null || gpuTdpSum > 0) {
-            int cpuPart = (cpuTdp != null) ? cpuTdp : 0;
-            estimated = cpuPart + gpuTdpSum + reserve;
+    /**
+     * Produkty dané kategorie, které jsou skladem a nezhorší kompatibilitu buildu.
+     * Kandidáty zúží index atributů (socket, wattage, tdp), každý se pak ověří stejnými pravidly
+     * jako {@link #checkCompatibility} – nesmí přidat chybu, kterou build ještě nemá.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> compatibleParts(Long buildId, Product.Category category, int limit) {
+        Build build = getMyBuildWithItems(buildId);
+        CompatibilityReportResponse compat = evaluate(build).compatibility();
+
+        Collection<Long> candidateIds = switch (category) {
+            case MB -> compat.cpuSocket() != null
+                    ? productAttributeIndex.bySocket(Product.Category.MB, compat.cpuSocket()) : null;
+            case CPU -> compat.mbSocket() != null
+                    ? productAttributeIndex.bySocket(Product.Category.CPU, compat.mbSocket()) : null;
+            case PSU -> compat.estimatedLoadW() != null
+                    ? productAttributeIndex.withWattageAtLeast(Product.Category.PSU, compat.estimatedLoadW()) : null;
+            case GPU -> compat.psuWattageW() != null
+                    ? productAttributeIndex.withTdpAtMost(Product.Category.GPU, compat.psuWattageW()) : null;
+            default -> null;
+        };
+
+        List<Product> candidates;
+        if (candidateIds == null) {
+            candidates = productRepository.findByCategoryAndStockGreaterThanOrderByPriceAsc(category, 0);
+        } else if (candidateIds.isEmpty()) {
+            candidates = List.of();
         } else {
-            warnings.add("Cannot estimate load (missing CPU/GPU TDP)");
-        }
-
-        if (estimated != null && psuWattage != null) {
-            if (psuWattage < estimated) {
-                errors.add("PSU wattage " + psuWattage + "W is below estimated load " + estimated + "W");
-            } else if (psuWattage < (int) Math.ceil(estimated * 1.2)) {
-                warnings.add("PSU wattage " + psuWattage + "W has low headroom for estimated load " + estimated + "W");
-            }
+            candidates = productRepository.findByIdInAndStockGreaterThanOrderByPriceAsc(candidateIds, 0);
         }
 
-        boolean compatible = errors.isEmpty();
-
-        return new CompatibilityReportResponse(
-                build.getId(),
-                compatible,
-                errors,
-                warnings,
-                estimated,
-                psuWattage,
-                cpuSocket,
-                mbSocket
-        );
-    }
-
-    public BuildValidationResponse validateBuild(Long buildId) {
-        Build build = get(buildId);
+        Integer max = buildRuleEngine.maxQuantity(category);
+        boolean replace = max != null && max <= 1;
+        Set<String> baselineErrors = new HashSet<>(compat.errors());
 
-        List<String> reasons = new ArrayList<>();
+        List<Product> res = new ArrayList<>();
+        for (Product candidate : candidates) {
+            if (res.size() >= limit) break;
+            if (candidate.getCategory() != category) continue;
 
-        boolean hasCpu  = totalQtyByCategory(build, Product.Category.CPU)  > 0;
-        boolean hasMb   = totalQtyByCategory(build, Product.Category.MB)   > 0;
-        boolean hasPsu  = totalQtyByCategory(build, Product.Category.PSU)  > 0;
-        boolean hasRam  = totalQtyByCategory(build, Product.Category.RAM)  > 0;
-        boolean hasCase = totalQtyByCategory(build, Product.Category.CASE) > 0;
-
-        if (!hasCpu)  reasons.add("Missing CPU");
-        if (!hasMb)   reasons.add("Missing MB");
-        if (!hasPsu)  reasons.add("Missing PSU");
-        if (!hasRam)  reasons.add("Missing RAM");
-        if (!hasCase) reasons.add("Missing CASE");
-
-        int cpu = totalQtyByCategory(build, Product.Category.CPU);
-        int gpu = totalQtyByCategory(build, Product.Category.GPU);
-        int psu = totalQtyByCategory(build, Product.Category.PSU);
-        int pcCase = totalQtyByCategory(build, Product.Category.CASE);
-        int ram = totalQtyByCategory(build, Product.Category.RAM);
+            Build hypothetical = withCandidate(build, candidate, replace);
+            List<String> errors = evaluate(hypothetical).compatibility().errors();
+            if (baselineErrors.containsAll(errors)) res.add(candidate);
+        }
 
-        if (cpu > MAX_CPU) reasons.add("CPU can be only once (max " + MAX_CPU + ")");
-        if (gpu > MAX_GPU) reasons.add("GPU can be only once (max " + MAX_GPU + ")");
-        if (psu > MAX_PSU) reasons.add("PSU can be only once (max " + MAX_PSU + ")");
-        if (pcCase > MAX_CASE) reasons.add("Case can be only once (max " + MAX_CASE + ")");
-        if (ram > MAX_RAM) reasons.add("RAM exceeds limit (max " + MAX_RAM + " sticks)");
+        return res;
+    }
 
-        CompatibilityReportResponse report = checkCompatibility(buildId);
-        reasons.addAll(report.errors());
+    // kopie buildu (jen v pameti) s kandidatem misto stavajiciho dilu kategorie, popr. navic
+    private Build withCandidate(Build build, Product candidate, boolean replace) {
+        Build copy = Build.builder()
+                .id(build.getId())
+                .name(build.getName())
+                .build();
 
         for (BuildItem bi : build.getItems()) {
             Product p = bi.getProduct();
-            int requested = bi.getQuantity();
-            int available = (p.getStock() == null) ? 0 : p.getStock();
-
-            if (requested > available) {
-                reasons.add("Not enough stock for " + p.getSku()
-                        + " (requested " + requested + ", available " + available + ")");
-            }
+            if (p.getId().equals(candidate.getId())) continue;
+            if (replace && p.getCategory() == candidate.getCategory()) continue;
+            copy.getItems().add(bi);
         }
 
-        boolean ok = reasons.isEmpty();
-        return new BuildValidationResponse(build.getId(), ok, reasons);
+        copy.getItems().add(BuildItem.builder()
+                .build(copy)
+                .product(candidate)
+                .quantity(1)
+                .build());
+
+        return copy;
     }
 
-    public void validateBuildOrThrow(Long buildId) {
-        String actor = SecurityUtils.usernameOrAnonymous();
-        BuildValidationResponse res = validateBuild(buildId);
+    private void requireValid(BuildEvaluation evaluation, String actor) {
+        BuildValidationResponse res = evaluation.validation();
 
         if (!res.ok()) {
-            log.warn("AUDIT BUILD_VALIDATE_FAIL actor={} buildId={} reasons={}", actor, buildId, res.reasons());
+            log.warn("AUDIT BUILD_VALIDATE_FAIL actor={} buildId={} reasons={}", actor, res.buildId(), res.reasons());
             throw new BuildValidationException(res.reasons());
         }
 
-        log.info("AUDIT BUILD_VALIDATE_OK actor={} buildId={}", actor, buildId);
+        log.info("AUDIT BUILD_VALIDATE_OK actor={} buildId={}", actor, res.buildId());
     }
 
-    public BuildSummaryResponse getBuildSummary(Long buildId) {
-        Build build = getMyBuild(buildId);
-
-        CompatibilityReportResponse compat = checkCompatibility(buildId);
-        BuildValidationResponse validation = validateBuild(buildId);
-
-        int distinctItemsCount = build.getItems().size();
-        int totalQuantity = build.getItems().stream().mapToInt(BuildItem::getQuantity).sum();
-
-        List<String> filteredWarnings = compat.warnings().stream()
-                .filter(w -> !w.equals("No motherboard in build"))
-                .filter(w -> !w.equals("No PSU in build"))
-                .toList();
-
-        return new BuildSummaryResponse(
-                build.getId(),
-                build.getName(),
-                distinctItemsCount,
-                totalQuantity,
-                compat.compatible(),
-                validation.ok(),
-                compat.estimatedLoadW() != null ? compat.estimatedLoadW() : 0,
-                compat.psuWattageW(),
-                validation.reasons(),
-                filteredWarnings
-        );
+    // build musi mit nactene polozky i produkty (getMyBuildWithItems)
+    BuildEvaluation evaluate(Build build) {
+        return buildRuleEngine.evaluate(build);
     }
 
     // ----------------------------
     // Small helpers
     // ----------------------------
 
-    private BuildItem findFirstByCategory(Build build, Product.Category category) {
-        return build.getItems().stream()
-                .filter(i -> i.getProduct().getCategory() == category)
-                .findFirst()
-                .orElse(null);
-    }
-
-    private String readStringSpec(String spec, String field, List<String> warnings, String label) {
-        try {
-            if (spec == null || spec.isBlank()) return null;
-            JsonNode node = objectMapper.readTree(spec);
-            JsonNode v = node.get(field);
-            if (v == null || v.isNull()) return null;
-            return v.asText();
-        } catch (Exception e) {
-            warnings.add(label + " spec is not valid JSON");
-            return null;
-        }
-    }
-
-    private Integer readIntSpec(String spec, String field, List<String> warnings, String label) {
-        try {
-            if (spec == null || spec.isBlank()) return null;
-            JsonNode node = objectMapper.readTree(spec);
-            JsonNode v = node.get(field);
-            if (v == null || v.isNull()) return null;
-            return v.asInt();
-        } catch (Exception e) {
-            warnings.add(label + " spec is not valid JSON");
-            return null;
-        }
-    }
-
-    private int totalQtyByCategory(Build build, Product.Category category) {
-        return build.getItems().stream()
-                .filter(i -> i.getProduct().getCategory() == category)
-                .mapToInt(BuildItem::getQuantity)
-                .sum();
-    }
-
-    private void enforceCategoryLimitsOrThrow(Build build) {
-        List<String> reasons = new ArrayList<>();
-
-        int cpu = totalQtyByCategory(build, Product.Category.CPU);
-        int gpu = totalQtyByCategory(build, Product.Category.GPU);
-        int psu = totalQtyByCategory(build, Product.Category.PSU);
-        int pcCase = totalQtyByCategory(build, Product.Category.CASE);
-        int ram = totalQtyByCategory(build, Product.Category.RAM);
-
-        if (cpu > MAX_CPU) reasons.add("CPU can be only once (max " + MAX_CPU + ")");
-        if (gpu > MAX_GPU) reasons.add("GPU can be only once (max " + MAX_GPU + ")");
-        if (psu > MAX_PSU) reasons.add("PSU can be only once (max " + MAX_PSU + ")");
-        if (pcCase > MAX_CASE) reasons.add("Case can be only once (max " + MAX_CASE + ")");
-        if (ram > MAX_RAM) reasons.add("RAM exceeds limit (max " + MAX_RAM + " sticks)");
-
+    // kusy podle kategorie (z agregatu buildu), polozky neprochazi
+    private void enforceCategoryLimitsOrThrow(int[] categoryQty) {
+        List<String> reasons = buildRuleEngine.limitViolations(categoryQty);
         if (!reasons.isEmpty()) {
             throw new BuildValidationException(reasons);
         }
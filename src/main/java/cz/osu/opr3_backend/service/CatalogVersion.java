@@ -0,0 +1,73 @@
+package cz.osu.opr3_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Verze katalogu pro ETag výpisu produktů, společná pro všechny instance – sekvence
+ * {@code catalog_version_seq} v DB.
+ * <p>
+ * Zápis, který mění katalog, sekvenci posune až po commitu (dřív by klient mohl dostat stará data
+ * s novou verzí). Instance si hodnotu drží v paměti: vlastní posun ji přepíše hned, změna z jiné
+ * instance ({@link InvalidationBus}) vynutí nové načtení a zápisy, které se nehlásí (obnova součtu
+ * rozděleného skladu), se projeví nejpozději po {@code app.products.catalog.version-refresh}.
+ */
+@Component
+public class CatalogVersion {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long refreshMs;
+
+    private volatile long version;
+    private volatile long loadedAt;
+
+    public CatalogVersion(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.products.catalog.version-refresh:PT1S}") Duration refresh
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshMs = Math.max(0, refresh.toMillis());
+    }
+
+    /** Katalog se změnil – posune sdílenou verzi po commitu (mimo transakci hned). */
+    public void bump() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                advance();
+            }
+        });
+    }
+
+    // verzi posunula jina instance -> pri pristim ETagu znovu nacist
+    public void refresh() {
+        loadedAt = 0;
+    }
+
+    // slabý ETag (tělo se může lišit kompresí)
+    public String etag() {
+        long now = System.currentTimeMillis();
+        if (loadedAt == 0 || now - loadedAt >= refreshMs) {
+            Long current = jdbcTemplate.queryForObject("select last_value from catalog_version_seq", Long.class);
+            version = current != null ? current : 0;
+            loadedAt = now;
+        }
+        return "W/\"" + version + "\"";
+    }
+
+    // sekvence je mimo transakce – nextval je hned videt vsem instancim
+    private void advance() {
+        Long next = jdbcTemplate.queryForObject("select nextval('catalog_version_seq')", Long.class);
+        version = next != null ? next : 0;
+        loadedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,397 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.CheckoutJob;
+import cz.osu.opr3_backend.model.entity.Order;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.BuildRepository;
+import cz.osu.opr3_backend.model.repo.CheckoutJobRepository;
+import cz.osu.opr3_backend.model.repo.OrderRepository;
+import cz.osu.opr3_backend.security.CurrentUser;
+import cz.osu.opr3_backend.web.dto.order.CheckoutJobResponse;
+import cz.osu.opr3_backend.web.dto.order.OrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronní checkout: request jen založí job a hned vrátí jeho id, checkout proběhne ve frontě.
+ * <p>
+ * Joby se řadí do pevného počtu "pruhů" (jedno vlákno na pruh) podle nejvzácnějšího produktu
+ * buildu – checkouty stejného horkého SKU tak jdou za sebou a nečekají na zámky řádků navzájem,
+ * různá SKU běží paralelně a počet souběžných transakcí do DB je omezený počtem pruhů.
+ * <p>
+ * Stav jobu je v tabulce {@code checkout_job}, dotaz na stav proto může přijít na kteroukoli
+ * instanci. Výsledek ({@code COMPLETED} + id objednávky) se zapisuje v transakci checkoutu, takže
+ * objednávka bez dokončeného jobu (ani naopak) nevznikne. Fronta je jen v paměti instance: job nese
+ * id instance a ta každých {@code app.checkout.async.heartbeat-ms} obnoví {@code updatedAt} všem jobům,
+ * které má ve frontě nebo zpracovává. Job bez heartbeatu déle než {@code app.checkout.async.stale-after}
+ * (instance skončila) se označí jako {@code LOST} a klient ho může zopakovat.
+ */
+@Service
+public class CheckoutJobService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutJobService.class);
+
+    private static final int HEARTBEAT_BATCH = 1000;
+
+    private static final TypeReference<Map<String, Object>> DETAILS = new TypeReference<>() {};
+
+    private final BuildService buildService;
+    private final BuildRepository buildRepository;
+    private final CheckoutJobRepository checkoutJobRepository;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readTx;
+    private final ThreadPoolExecutor[] lanes;
+    private final ScheduledThreadPoolExecutor poller;
+    private final Duration retention;
+    private final Duration staleAfter;
+    private final Duration maxWait;
+    private final long pollMs;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    // joby bezici na teto instanci – long-poll na ne ceka bez dotazovani DB
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> local = new ConcurrentHashMap<>();
+
+    public CheckoutJobService(
+            BuildService buildService,
+            BuildRepository buildRepository,
+            CheckoutJobRepository checkoutJobRepository,
+            OrderRepository orderRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.checkout.async.lanes:4}") int laneCount,
+            @Value("${app.checkout.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.checkout.async.retention:PT15M}") Duration retention,
+            @Value("${app.checkout.async.stale-after:PT5M}") Duration staleAfter,
+            @Value("${app.checkout.async.max-wait:PT30S}") Duration maxWait,
+            @Value("${app.checkout.async.poll-ms:250}") long pollMs,
+            @Value("${app.checkout.async.heartbeat-ms:30000}") long heartbeatMs
+    ) {
+        // job cekajici ve fronte zive instance nesmi vypadat jako ztraceny
+        if (heartbeatMs * 2 >= staleAfter.toMillis()) {
+            throw new IllegalArgumentException("app.checkout.async.heartbeat-ms must be less than half of app.checkout.async.stale-after");
+        }
+        this.buildService = buildService;
+        this.buildRepository = buildRepository;
+        this.checkoutJobRepository = checkoutJobRepository;
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.retention = retention;
+        this.staleAfter = staleAfter;
+        this.maxWait = maxWait;
+        this.pollMs = Math.max(10, pollMs);
+
+        this.lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "checkout-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(
+                    1, 1,
+                    0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    // plna fronta -> odmitnout (503), ne pocitat v request vlakne
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        }
+
+        // long-poll jobu z jine instance – opakovane cteni stavu z DB
+        this.poller = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "checkout-job-poll");
+            t.setDaemon(true);
+            return t;
+        });
+        this.poller.setRemoveOnCancelPolicy(true);
+    }
+
+    // ----------------------------
+    // Submit / Read
+    // ----------------------------
+
+    public CheckoutJobResponse submit(Long buildId) {
+        String username = CurrentUser.username();
+        if (username == null) throw new UnauthorizedException("Not authenticated");
+
+        // vlastnictvi a prazdny build overime hned, at klient nedostane job, ktery urcite selze
+        Build build = buildRepository.findWithItemsByIdAndOwner_Username(buildId, username)
+                .orElseThrow(() -> new NotFoundException("Build " + buildId + " not found"));
+        if (build.getItems().isEmpty()) {
+            throw new IllegalStateException("Build " + buildId + " is empty");
+        }
+
+        Instant now = Instant.now();
+        CheckoutJob job = tx.execute(s -> checkoutJobRepository.save(CheckoutJob.builder()
+                .id(UUID.randomUUID().toString())
+                .username(username)
+                .buildId(buildId)
+                .state(CheckoutJob.State.QUEUED)
+                .nodeId(nodeId)
+                .createdAt(now)
+                .updatedAt(now)
+                .build()));
+        String jobId = job.getId();
+        int lane = laneFor(build);
+        local.put(jobId, new CompletableFuture<>());
+
+        try {
+            lanes[lane].execute(() -> run(jobId, username, buildId));
+        } catch (RejectedExecutionException e) {
+            local.remove(jobId);
+            tx.executeWithoutResult(s -> checkoutJobRepository.deleteById(jobId));
+            log.warn("AUDIT BUILD_CHECKOUT_ASYNC_REJECTED actor={} buildId={} lane={} reason=queue_full",
+                    username, buildId, lane);
+            throw new ServiceBusyException("Checkout queue is full, please retry later");
+        }
+
+        log.info("AUDIT BUILD_CHECKOUT_ASYNC_QUEUED actor={} buildId={} jobId={} lane={}",
+                username, buildId, jobId, lane);
+
+        return toResponse(job);
+    }
+
+    public CheckoutJobResponse get(String jobId) {
+        return load(jobId, currentUsername());
+    }
+
+    /**
+     * Long-poll: dokončí se hned po doběhnutí jobu, nejpozději po {@code wait}
+     * (omezeno {@code app.checkout.async.max-wait}) s aktuálním stavem.
+     */
+    public CompletableFuture<CheckoutJobResponse> await(String jobId, Duration wait) {
+        String username = currentUsername();
+        CheckoutJobResponse current = load(jobId, username);
+        if (finished(current) || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        long waitMs = Math.min(wait.toMillis(), maxWait.toMillis());
+        CompletableFuture<CheckoutJobResponse> result = new CompletableFuture<>();
+
+        CompletableFuture<Void> running = local.get(jobId);
+        if (running != null) {
+            // job bezi tady – staci pockat na jeho dokonceni (odvozeny future, timeout nesmi dokoncit sdileny)
+            running.thenRun(() -> {})
+                    .completeOnTimeout(null, waitMs, TimeUnit.MILLISECONDS)
+                    .whenCompleteAsync((v, e) -> poll(jobId, username, 0, result), poller);
+        } else {
+            long deadline = System.currentTimeMillis() + waitMs;
+            poller.schedule(() -> poll(jobId, username, deadline, result), Math.min(pollMs, waitMs), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    // ----------------------------
+    // Worker
+    // ----------------------------
+
+    private void run(String jobId, String username, Long buildId) {
+        try {
+            Integer started = tx.execute(s -> checkoutJobRepository.transition(
+                    jobId, CheckoutJob.State.QUEUED, CheckoutJob.State.PROCESSING, Instant.now()));
+            if (started == null || started != 1) {
+                log.warn("Checkout job no longer queued, skipping jobId={} buildId={}", jobId, buildId);
+                return;
+            }
+            checkout(jobId, username, buildId);
+
+        } catch (RuntimeException e) {
+            // stav se nepodarilo zapsat (DB) – job dobehne jako LOST
+            log.error("Checkout job state could not be stored jobId={} buildId={}", jobId, buildId, e);
+
+        } finally {
+            CompletableFuture<Void> done = local.remove(jobId);
+            if (done != null) done.complete(null);
+        }
+    }
+
+    private void checkout(String jobId, String username, Long buildId) {
+        try {
+            // objednavka a vysledek jobu v jedne transakci
+            tx.executeWithoutResult(s -> {
+                Order order = buildService.checkoutFor(username, buildId);
+                if (checkoutJobRepository.complete(jobId, order.getId(), Instant.now()) != 1) {
+                    throw new ConflictException("Checkout job " + jobId + " was marked as lost");
+                }
+            });
+
+        } catch (OutOfStockException e) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("productId", e.getProductId());
+            details.put("requested", e.getRequested());
+            details.put("available", e.getAvailable());
+            fail(jobId, "OUT_OF_STOCK", e.getMessage(), details);
+
+        } catch (BuildValidationException e) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("reasons", e.getReasons());
+            fail(jobId, "BUILD_INVALID", e.getMessage(), details);
+
+        } catch (NotFoundException e) {
+            fail(jobId, "NOT_FOUND", e.getMessage(), null);
+
+        } catch (ObjectOptimisticLockingFailureException e) {
+            fail(jobId, "CONFLICT", "Data changed by another request. Please retry.", null);
+
+        } catch (RuntimeException e) {
+            log.error("Async checkout failed jobId={} buildId={}", jobId, buildId, e);
+            fail(jobId, "ERROR", e.getMessage(), null);
+        }
+    }
+
+    private void fail(String jobId, String error, String message, Map<String, Object> details) {
+        String json = details == null ? null : toJson(details);
+        tx.executeWithoutResult(s -> checkoutJobRepository.fail(jobId, error, message, json, Instant.now()));
+    }
+
+    // joby teto instance (ve fronte i zpracovavane) nejsou ztracene
+    @Scheduled(fixedDelayString = "${app.checkout.async.heartbeat-ms:30000}")
+    public void heartbeat() {
+        List<String> ids = List.copyOf(local.keySet());
+        if (ids.isEmpty()) return;
+
+        Instant now = Instant.now();
+        for (int from = 0; from < ids.size(); from += HEARTBEAT_BATCH) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + HEARTBEAT_BATCH));
+            tx.execute(s -> checkoutJobRepository.heartbeat(nodeId, chunk, now));
+        }
+    }
+
+    // rozpracovane joby bez heartbeatu -> LOST, dokoncene drzime jen po dobu retention
+    @Scheduled(fixedDelayString = "${app.checkout.async.cleanup-ms:60000}")
+    public void evictCompleted() {
+        Instant now = Instant.now();
+        Integer lost = tx.execute(s -> checkoutJobRepository.failStale(
+                now.minus(staleAfter), "Checkout job was not processed, please retry.", now));
+        if (lost != null && lost > 0) {
+            log.warn("AUDIT BUILD_CHECKOUT_ASYNC_LOST count={} staleAfter={}", lost, staleAfter);
+        }
+        tx.execute(s -> checkoutJobRepository.deleteCompletedBefore(now.minus(retention)));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        poller.shutdownNow();
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private static String currentUsername() {
+        String username = CurrentUser.username();
+        if (username == null) throw new UnauthorizedException("Not authenticated");
+        return username;
+    }
+
+    private void poll(String jobId, String username, long deadline, CompletableFuture<CheckoutJobResponse> result) {
+        try {
+            CheckoutJobResponse current = load(jobId, username);
+            long remaining = deadline - System.currentTimeMillis();
+            if (finished(current) || remaining <= 0) {
+                result.complete(current);
+                return;
+            }
+            poller.schedule(() -> poll(jobId, username, deadline, result), Math.min(pollMs, remaining), TimeUnit.MILLISECONDS);
+
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private CheckoutJobResponse load(String jobId, String username) {
+        return readTx.execute(s -> checkoutJobRepository.findByIdAndUsername(jobId, username)
+                .map(this::toResponse)
+                .orElseThrow(() -> new NotFoundException("Checkout job " + jobId + " not found")));
+    }
+
+    private CheckoutJobResponse toResponse(CheckoutJob job) {
+        OrderResponse order = job.getOrderId() == null ? null
+                : orderRepository.findByIdAndOwner_Username(job.getOrderId(), job.getUsername())
+                        .map(OrderResponse::of)
+                        .orElse(null);
+        return new CheckoutJobResponse(
+                job.getId(),
+                job.getBuildId(),
+                job.getState(),
+                job.getOrderId(),
+                order == null ? null : order.status(),
+                order,
+                job.getError(),
+                job.getMessage(),
+                job.getDetails() == null ? null : fromJson(job.getDetails()),
+                job.getCreatedAt(),
+                job.getCompletedAt()
+        );
+    }
+
+    private static boolean finished(CheckoutJobResponse r) {
+        return r.state() == CheckoutJob.State.COMPLETED || r.state() == CheckoutJob.State.FAILED;
+    }
+
+    private String toJson(Map<String, Object> details) {
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Checkout job details cannot be stored", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String details) {
+        try {
+            return objectMapper.readValue(details, DETAILS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored checkout job details cannot be read", e);
+        }
+    }
+
+    // pruh podle produktu s nejmensi zasobou (pri dropu je to ten, o ktery se souperi)
+    private int laneFor(Build build) {
+        Long productId = build.getItems().stream()
+                .map(BuildItem::getProduct)
+                .min(Comparator.comparingInt(p -> p.getStock() == null ? 0 : p.getStock()))
+                .map(Product::getId)
+                .orElse(build.getId());
+        return Math.floorMod(productId.hashCode(), lanes.length);
+    }
+}
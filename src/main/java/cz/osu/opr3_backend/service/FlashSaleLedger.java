@@ -0,0 +1,622 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.FlashSaleAllotment;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.FlashSaleAllotmentRepository;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sklad flash-sale produktů prodávaný z paměti JVM.
+ * <p>
+ * Každá instance si ze skladu v DB odepíše podíl ({@link FlashSaleAllotment}) stejným podmíněným
+ * odpisem jako objednávka a prodává jen z něj – ledger je autoritativní pro svůj podíl a instancí
+ * může běžet libovolně mnoho. Přidání produktu do buildu si vezme časově omezenou rezervaci (hold),
+ * checkout ji spotřebuje a prodané kusy se od podílu v DB odečtou dávkově plánovačem. Pro každý
+ * produkt platí {@code free + held + inflight + pending - unsettled = podíl v DB}.
+ * <p>
+ * Když podíl dojde, doplní se ze skladu ({@code app.flash-sale.allotment-size}). Nevyužité kusy se
+ * vrátí do skladu při vypnutí produktu nebo aplikace; podíl instance, která skončila bez vrácení,
+ * vrátí po expiraci ({@code app.flash-sale.allotment-ttl}) kterákoli jiná instance.
+ */
+@Component
+public class FlashSaleLedger implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleLedger.class);
+
+    private final ProductRepository productRepository;
+    private final FlashSaleAllotmentRepository allotmentRepository;
+    private final StockService stockService;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate tx;
+    private final Duration holdTtl;
+    private final Duration drainTimeout;
+    private final int allotmentSize;
+    private final Duration allotmentTtl;
+
+    // podily v DB patri teto instanci (jen do jejiho konce)
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final ConcurrentHashMap<Long, Sku> skus = new ConcurrentHashMap<>();
+
+    public FlashSaleLedger(
+            ProductRepository productRepository,
+            FlashSaleAllotmentRepository allotmentRepository,
+            StockService stockService,
+            CatalogVersion catalogVersion,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.flash-sale.hold-ttl:PT10M}") Duration holdTtl,
+            @Value("${app.flash-sale.drain-timeout:PT5S}") Duration drainTimeout,
+            @Value("${app.flash-sale.allotment-size:50}") int allotmentSize,
+            @Value("${app.flash-sale.allotment-ttl:PT5M}") Duration allotmentTtl,
+            @Value("${app.flash-sale.allotment-renew-ms:30000}") long renewMs
+    ) {
+        // podil zive instance nesmi propadnout mezi dvema prodlouzenimi
+        if (renewMs * 2 >= allotmentTtl.toMillis()) {
+            throw new IllegalArgumentException("app.flash-sale.allotment-renew-ms must be less than half of app.flash-sale.allotment-ttl");
+        }
+        this.productRepository = productRepository;
+        this.allotmentRepository = allotmentRepository;
+        this.stockService = stockService;
+        this.catalogVersion = catalogVersion;
+        this.tx = new TransactionTemplate(transactionManager);
+        // podil a davkovy odpis vzdy ve vlastni transakci (i kdyz se vola z rezervace nebo checkoutu)
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.holdTtl = holdTtl;
+        this.drainTimeout = drainTimeout;
+        this.allotmentSize = Math.max(1, allotmentSize);
+        this.allotmentTtl = allotmentTtl;
+    }
+
+    private record Hold(int qty, long expiresAt) {}
+
+    private static final class Sku {
+        final AtomicInteger free = new AtomicInteger();
+        final AtomicInteger held = new AtomicInteger();
+        final AtomicInteger inflight = new AtomicInteger();   // spotrebovano, transakce checkoutu jeste bezi
+        final AtomicInteger pending = new AtomicInteger();    // potvrzeno, ceka na davkovy odpis v DB
+        int unsettled;                                        // z pending mimo podil (podil propadl) – odpis primo ze skladu, pod zamkem sku
+        volatile boolean closed;                              // vypinani – nove rezervace ani checkouty neprijima
+        final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    }
+
+    // spotrebovany kus z jednoho produktu – pro vraceni pri rollbacku
+    private record Taken(Sku sku, int fromHold, int fromFree) {}
+
+    // ----------------------------
+    // Lifecycle
+    // ----------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Product p : productRepository.findByFlashSaleTrue()) {
+            try {
+                enable(p);
+            } catch (RuntimeException e) {
+                log.warn("Flash-sale ledger skipped productId={} reason={}", p.getId(), e.getMessage());
+            }
+        }
+        log.info("Flash-sale ledger started node={} products={}", nodeId, skus.size());
+    }
+
+    // produkt se zacne prodavat z podilu teto instance
+    public synchronized void enable(Product p) {
+        Sku current = skus.get(p.getId());
+        if (current != null && !current.closed) return;
+        if (current != null && !finish(p.getId(), current)) {
+            throw new ServiceBusyException("Flash-sale stock of product " + p.getId() + " is still being written off, please retry later");
+        }
+
+        Sku sku = new Sku();
+        skus.put(p.getId(), sku);
+        refill(p.getId(), sku, 0);
+    }
+
+    /**
+     * Nevyřízené odpisy se zapíšou, rezervace propadnou a nevyužitý podíl se vrátí do skladu.
+     * Rozjeté checkouty se nechají doběhnout, jinak by jejich odpis už nikdo nezapsal.
+     *
+     * @throws ServiceBusyException checkouty nedoběhly do {@code app.flash-sale.drain-timeout}
+     *                              – produkt zůstane uzavřený a plánovač ho dál odepisuje
+     */
+    public void disable(Long productId) {
+        Sku sku = skus.get(productId);
+        if (sku == null) return;
+
+        sku.closed = true;
+        if (!awaitDrained(sku)) {
+            throw new ServiceBusyException("Flash-sale checkouts of product " + productId + " are still running, please retry later");
+        }
+        if (!finish(productId, sku)) {
+            log.warn("Flash-sale ledger keeps closed productId={} pending={} until written off", productId, sku.pending.get());
+        }
+    }
+
+    // uzavreny produkt s dobehnutymi checkouty: posledni odpis, vraceni podilu a odebrani (false = v DB jeste neni vse)
+    private boolean finish(Long productId, Sku sku) {
+        if (sku.inflight.get() > 0) return false;
+        flush(productId, sku);
+        if (sku.pending.get() > 0) return false;
+        if (!returnAllotment(productId)) return false;
+        skus.remove(productId, sku);
+        return true;
+    }
+
+    /**
+     * Nový stav skladu nastavený adminem platí pro celý produkt – podíly všech instancí propadnou
+     * (v transakci volajícího). Ostatní instance to poznají při odpisu nebo prodloužení podílu a prodané
+     * kusy odepíšou přímo z nového stavu. Před zápisem do DB volat {@link #flush(Long)}.
+     */
+    public void reset(Long productId) {
+        allotmentRepository.deleteByProductId(productId);
+        Sku sku = skus.get(productId);
+        if (sku == null) return;
+        afterCommit(() -> {
+            synchronized (sku) {
+                dropAllotment(sku);
+            }
+        });
+    }
+
+    // podily zpet do skladu; co se nestihne (rozjete checkouty, nedostupna DB), vrati po expiraci jina instance
+    @Override
+    public void destroy() {
+        skus.values().forEach(sku -> sku.closed = true);
+
+        for (Map.Entry<Long, Sku> e : skus.entrySet()) {
+            Long productId = e.getKey();
+            Sku sku = e.getValue();
+            if (!awaitDrained(sku) || !finish(productId, sku)) {
+                log.error("AUDIT FLASH_SALE_SHUTDOWN_UNSETTLED productId={} node={} pending={} unsettled={} – settle manually",
+                        productId, nodeId, sku.pending.get(), sku.unsettled);
+            }
+        }
+    }
+
+    // ----------------------------
+    // Holds
+    // ----------------------------
+
+    /**
+     * Rezervuje {@code qty} kusů pro držitele (např. {@code build:12}). Produkty mimo flash-sale
+     * ignoruje. Při rollbacku volající transakce se rezervace vrátí.
+     */
+    public void hold(String holder, Long productId, int qty) {
+        Sku sku = skus.get(productId);
+        if (sku == null || sku.closed) return;
+
+        if (!takeFree(productId, sku, qty)) {
+            throw new OutOfStockException(productId, qty, Math.max(0, sku.free.get()));
+        }
+        long expiresAt = System.currentTimeMillis() + holdTtl.toMillis();
+        sku.holds.merge(holder, new Hold(qty, expiresAt), (a, b) -> new Hold(a.qty() + b.qty(), b.expiresAt()));
+        sku.held.addAndGet(qty);
+
+        onRollback(() -> unhold(sku, holder, qty));
+    }
+
+    // uvolni celou rezervaci drzitele (po commitu odebrani polozky)
+    public void release(String holder, Long productId) {
+        Sku sku = skus.get(productId);
+        if (sku == null) return;
+        afterCommit(() -> unhold(sku, holder, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Spotřebuje rezervace (a chybějící kusy z volných) pro checkout. Vrací řádky,
+     * které se mají odepsat přímo v DB (produkty mimo flash-sale). Po commitu jdou spotřebované
+     * kusy do dávkového odpisu, při rollbacku se vrátí do rezervací/volných.
+     */
+    public Map<Long, Integer> consume(String holder, Map<Long, Integer> qtyByProduct) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Flash-sale checkout must run in a transaction");
+        }
+
+        Map<Long, Integer> rest = new HashMap<>();
+        List<Taken> taken = new ArrayList<>();
+
+        afterCompletion(committed -> {
+            for (Taken t : taken) {
+                int total = t.fromHold() + t.fromFree();
+                if (committed) {
+                    t.sku().pending.addAndGet(total);
+                } else {
+                    if (t.fromHold() > 0) {
+                        long expiresAt = System.currentTimeMillis() + holdTtl.toMillis();
+                        t.sku().holds.merge(holder, new Hold(t.fromHold(), expiresAt),
+                                (a, b) -> new Hold(a.qty() + b.qty(), b.expiresAt()));
+                        t.sku().held.addAndGet(t.fromHold());
+                    }
+                    t.sku().free.addAndGet(t.fromFree());
+                }
+                leave(t.sku(), total);
+            }
+        });
+
+        for (Map.Entry<Long, Integer> line : qtyByProduct.entrySet()) {
+            Sku sku = skus.get(line.getKey());
+            int qty = line.getValue();
+            if (sku == null) {
+                rest.put(line.getKey(), qty);
+                continue;
+            }
+            if (!enter(sku, qty)) {
+                // prodane kusy jeste nejsou odepsane v DB – prodej primo z DB by je prodal podruhe
+                throw new ServiceBusyException("Flash-sale product " + line.getKey() + " is being switched off, please retry");
+            }
+
+            int fromHold = takeHold(sku, holder, qty);
+            int fromFree = qty - fromHold;
+
+            if (fromFree > 0 && !takeFree(line.getKey(), sku, fromFree)) {
+                leave(sku, fromFree);
+                taken.add(new Taken(sku, fromHold, 0));
+                throw new OutOfStockException(line.getKey(), qty, fromHold + Math.max(0, sku.free.get()));
+            }
+            taken.add(new Taken(sku, fromHold, fromFree));
+        }
+        return rest;
+    }
+
+    // ----------------------------
+    // Scheduler
+    // ----------------------------
+
+    @Scheduled(fixedDelayString = "${app.flash-sale.expire-ms:1000}")
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (Sku sku : skus.values()) {
+            for (Map.Entry<String, Hold> e : sku.holds.entrySet()) {
+                Hold h = e.getValue();
+                if (h.expiresAt() <= now && sku.holds.remove(e.getKey(), h)) {
+                    sku.held.addAndGet(-h.qty());
+                    sku.free.addAndGet(h.qty());
+                    expired++;
+                }
+            }
+        }
+        if (expired > 0) {
+            log.debug("Flash-sale ledger expired {} holds", expired);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.flash-sale.flush-ms:500}")
+    public void flushAll() {
+        skus.forEach((productId, sku) -> {
+            // vypnuty produkt, na jehoz checkouty se necekalo – dokonci se, az dobehnou
+            if (sku.closed) {
+                finish(productId, sku);
+            } else {
+                flush(productId, sku);
+            }
+        });
+    }
+
+    // davkovy odpis nahromadenych kusu jednoho produktu do DB
+    public void flush(Long productId) {
+        Sku sku = skus.get(productId);
+        if (sku != null) flush(productId, sku);
+    }
+
+    /**
+     * Prodloužení podílů této instance; podíly instancí, které skončily bez vrácení, jdou zpět do skladu.
+     * Podíl, který mezitím propadl (nový stav skladu, výpadek delší než TTL), se tu pozná i bez prodeje.
+     */
+    @Scheduled(fixedDelayString = "${app.flash-sale.allotment-renew-ms:30000}")
+    public void renewAllotments() {
+        Instant now = Instant.now();
+        tx.execute(s -> allotmentRepository.renew(nodeId, now.plus(allotmentTtl)));
+
+        skus.forEach((productId, sku) -> {
+            synchronized (sku) {
+                if (backed(sku) > 0 && !allotmentRepository.existsByProductIdAndNodeId(productId, nodeId)) {
+                    log.warn("AUDIT FLASH_SALE_ALLOTMENT_LOST productId={} node={} pending={}", productId, nodeId, sku.pending.get());
+                    dropAllotment(sku);
+                }
+            }
+        });
+
+        reclaimExpired(now);
+    }
+
+    // ----------------------------
+    // Allotment
+    // ----------------------------
+
+    // volne kusy, pripadne doplnene ze skladu v DB
+    private boolean takeFree(Long productId, Sku sku, int qty) {
+        if (take(sku.free, qty)) return true;
+        return refill(productId, sku, qty) && take(sku.free, qty);
+    }
+
+    // doplneni podilu o allotment-size kusu (alespon qty); v DB muze byt mene – vezme se, co tam je
+    private boolean refill(Long productId, Sku sku, int qty) {
+        synchronized (sku) {
+            if (sku.closed) return false;
+            int missing = qty - sku.free.get();
+            if (qty > 0 && missing <= 0) return true;   // mezitim doplnil jiny checkout
+
+            int want = Math.max(allotmentSize, missing);
+            int got;
+            try {
+                got = reserve(productId, want);
+            } catch (OutOfStockException e) {
+                int available = Math.min(want, e.getAvailable());
+                got = available > 0 ? reserveOrZero(productId, available) : 0;
+            } catch (RuntimeException e) {
+                log.warn("Flash-sale allotment refill failed productId={} qty={} reason={}", productId, want, e.getMessage());
+                throw new ServiceBusyException("Flash-sale stock of product " + productId + " is temporarily unavailable, please retry");
+            }
+
+            if (got > 0) {
+                sku.free.addAndGet(got);
+                log.info("AUDIT FLASH_SALE_ALLOTMENT productId={} node={} qty={}", productId, nodeId, got);
+            }
+            return sku.free.get() >= qty;
+        }
+    }
+
+    // podmineny odpis ze skladu (jako objednavka) a navyseni podilu teto instance v jedne transakci
+    private int reserve(Long productId, int qty) {
+        tx.executeWithoutResult(s -> {
+            stockService.decrement(Map.of(productId, qty));
+            Instant expiresAt = Instant.now().plus(allotmentTtl);
+            if (allotmentRepository.add(productId, nodeId, qty, expiresAt) == 0) {
+                allotmentRepository.save(FlashSaleAllotment.builder()
+                        .productId(productId)
+                        .nodeId(nodeId)
+                        .qty(qty)
+                        .expiresAt(expiresAt)
+                        .build());
+            }
+            catalogVersion.bump();
+        });
+        return qty;
+    }
+
+    private int reserveOrZero(Long productId, int qty) {
+        try {
+            return reserve(productId, qty);
+        } catch (OutOfStockException e) {
+            return 0;   // mezitim prodal nekdo jiny
+        }
+    }
+
+    // nevyuzite kusy podilu zpet do skladu (rezervace propadaji); false = DB nedostupna
+    private boolean returnAllotment(Long productId) {
+        try {
+            tx.executeWithoutResult(s -> allotmentRepository.lockByProductIdAndNodeId(productId, nodeId).ifPresent(a -> {
+                if (a.getQty() > 0) stockService.increment(productId, a.getQty());
+                allotmentRepository.delete(a);
+                catalogVersion.bump();
+                log.info("AUDIT FLASH_SALE_ALLOTMENT_RETURNED productId={} node={} qty={}", productId, nodeId, a.getQty());
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Flash-sale allotment return postponed productId={} reason={}", productId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void reclaimExpired(Instant now) {
+        tx.executeWithoutResult(s -> {
+            List<FlashSaleAllotment> expired = allotmentRepository.lockExpired(now);
+            if (expired.isEmpty()) return;
+            for (FlashSaleAllotment a : expired) {
+                if (a.getQty() > 0) stockService.increment(a.getProductId(), a.getQty());
+                log.warn("AUDIT FLASH_SALE_ALLOTMENT_EXPIRED productId={} node={} qty={}", a.getProductId(), a.getNodeId(), a.getQty());
+            }
+            allotmentRepository.deleteAll(expired);
+            catalogVersion.bump();
+        });
+    }
+
+    // podil v DB uz neni: volne kusy nejsou kryte (rezervace a rozjete checkouty pokryje dalsi doplneni),
+    // neodepsane prodane kusy se odepisou primo ze skladu; pod zamkem sku
+    private static void dropAllotment(Sku sku) {
+        sku.unsettled = sku.pending.get();
+        sku.free.set(-(sku.held.get() + sku.inflight.get()));
+    }
+
+    // kolik kusu ma byt v podilu v DB
+    private static int backed(Sku sku) {
+        return sku.free.get() + sku.held.get() + sku.inflight.get() + sku.pending.get() - sku.unsettled;
+    }
+
+    // ----------------------------
+    // Write-off
+    // ----------------------------
+
+    private void flush(Long productId, Sku sku) {
+        synchronized (sku) {
+            int qty = sku.pending.getAndSet(0);
+            if (qty == 0) return;
+
+            int before = sku.unsettled;
+            // nejdriv kusy mimo podil, zbytek se odecte od podilu
+            int direct = Math.min(qty, sku.unsettled);
+            int fromAllotment = qty - direct;
+            sku.unsettled -= direct;
+
+            if (fromAllotment > 0) {
+                Integer settled;
+                try {
+                    settled = tx.execute(s -> allotmentRepository.settle(productId, nodeId, fromAllotment));
+                } catch (RuntimeException e) {
+                    // DB nedostupna -> zkusime priste
+                    sku.pending.addAndGet(qty);
+                    sku.unsettled += direct;
+                    log.warn("Flash-sale flush postponed productId={} qty={} reason={}", productId, qty, e.getMessage());
+                    return;
+                }
+                if (settled == null || settled == 0) {
+                    // podil mezitim propadl (expirace, novy stav skladu) -> prodane kusy primo ze skladu
+                    log.warn("AUDIT FLASH_SALE_ALLOTMENT_LOST productId={} node={} pending={}", productId, nodeId, qty);
+                    dropAllotment(sku);
+                    direct = qty;
+                }
+            }
+
+            int left = (direct > 0) ? writeOff(productId, sku, direct) : 0;
+
+            // hlasime jen novy rozdil, ne kazdy neuspesny pokus planovace
+            if (left > before) {
+                log.error("Flash-sale stock oversold productId={} unsettled={} – restock to settle", productId, sku.unsettled);
+                log.error("AUDIT FLASH_SALE_OVERSOLD productId={} qty={} unsettled={}", productId, left - before, sku.unsettled);
+            } else if (before > 0 && sku.unsettled == 0) {
+                log.warn("AUDIT FLASH_SALE_OVERSOLD_SETTLED productId={} qty={}", productId, before);
+            }
+        }
+    }
+
+    /*
+     * Prodane kusy mimo podil (podil propadl). Objednavky uz jsou potvrzene – odepiseme, co v DB je,
+     * zbytek zustane v pending/unsettled a odepise se, az admin sklad doplni. Vraci, kolik v DB chybelo.
+     */
+    private int writeOff(Long productId, Sku sku, int qty) {
+        try {
+            decrement(productId, qty);
+            return 0;
+        } catch (OutOfStockException e) {
+            int available = Math.max(0, Math.min(qty, e.getAvailable()));
+            int part = 0;
+            if (available > 0) {
+                try {
+                    decrement(productId, available);
+                    part = available;
+                } catch (RuntimeException again) {
+                    // mezitim se zmenilo i to -> priste znovu cele
+                }
+            }
+            sku.pending.addAndGet(qty - part);
+            sku.unsettled += qty - part;
+            return qty - part;
+        } catch (RuntimeException e) {
+            // DB nedostupna -> zkusime priste
+            sku.pending.addAndGet(qty);
+            sku.unsettled += qty;
+            log.warn("Flash-sale flush postponed productId={} qty={} reason={}", productId, qty, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void decrement(Long productId, int qty) {
+        tx.executeWithoutResult(s -> {
+            stockService.decrement(Map.of(productId, qty));
+            catalogVersion.bump();
+        });
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    // checkout zabira produkt (inflight); uzavreny produkt uz ledger neobsluhuje
+    private static boolean enter(Sku sku, int qty) {
+        sku.inflight.addAndGet(qty);
+        if (!sku.closed) return true;
+        leave(sku, qty);
+        return false;
+    }
+
+    private static void leave(Sku sku, int qty) {
+        if (sku.inflight.addAndGet(-qty) == 0 && sku.closed) {
+            synchronized (sku) {
+                sku.notifyAll();
+            }
+        }
+    }
+
+    private boolean awaitDrained(Sku sku) {
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        synchronized (sku) {
+            while (sku.inflight.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(sku, left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // lock-free odebrani z citace, nikdy pod nulu
+    private static boolean take(AtomicInteger counter, int qty) {
+        while (true) {
+            int cur = counter.get();
+            if (cur < qty) return false;
+            if (counter.compareAndSet(cur, cur - qty)) return true;
+        }
+    }
+
+    // odebere az qty z rezervace drzitele, vraci kolik se odebralo (held se snizi)
+    private static int takeHold(Sku sku, String holder, int qty) {
+        int[] got = new int[1];
+        sku.holds.computeIfPresent(holder, (k, h) -> {
+            got[0] = Math.min(qty, h.qty());
+            return h.qty() > got[0] ? new Hold(h.qty() - got[0], h.expiresAt()) : null;
+        });
+        sku.held.addAndGet(-got[0]);
+        return got[0];
+    }
+
+    private static void unhold(Sku sku, String holder, int qty) {
+        int released = takeHold(sku, holder, qty);
+        sku.free.addAndGet(released);
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        afterCompletion(committed -> {
+            if (!committed) action.run();
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        afterCompletion(committed -> {
+            if (committed) action.run();
+        });
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
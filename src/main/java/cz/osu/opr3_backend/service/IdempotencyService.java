@@ -0,0 +1,222 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.entity.IdempotencyRecord;
+import cz.osu.opr3_backend.model.repo.IdempotencyRecordRepository;
+import cz.osu.opr3_backend.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Hlavička {@code Idempotency-Key}: první úspěšné provedení se uloží (v téže transakci jako
+ * samotná změna) a opakování se stejným klíčem vrátí uloženou odpověď místo nového provedení.
+ * <p>
+ * Před tabulkou je omezená LRU cache, souběžné duplicity v rámci JVM čekají na první běh.
+ * Neúspěšné pokusy se neukládají – klient je může zopakovat se stejným klíčem.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Duration inFlightWait;
+
+    private record Stored(String scope, String body, Instant expiresAt) {}
+
+    private final Map<String, Stored> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${app.idempotency.in-flight-wait:PT30S}") Duration inFlightWait
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.inFlightWait = inFlightWait;
+
+        // access-order LinkedHashMap = LRU
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Provede {@code action} nejvýš jednou pro dvojici (uživatel, klíč). Bez klíče jen provede akci.
+     *
+     * @param scope popis operace včetně parametrů (např. {@code checkout:build:12}) –
+     *              stejný klíč použitý pro jinou operaci skončí {@link ConflictException}
+     */
+    public <T> T execute(String key, String scope, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String username = CurrentUser.username();
+        if (username == null) throw new UnauthorizedException("Not authenticated");
+
+        String cacheKey = username + "\n" + key;
+
+        Stored stored = lookup(username, key, cacheKey);
+        if (stored != null) {
+            return replay(stored, scope, key, type);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return replay(awaitInFlight(running, key), scope, key, type);
+        }
+
+        try {
+            // mezitim mohl prvni beh skoncit
+            stored = lookup(username, key, cacheKey);
+            if (stored == null) {
+                stored = runAndStore(username, key, scope, action);
+            }
+            mine.complete(stored);
+            return replay(stored, scope, key, type);
+
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-ms:3600000}")
+    public void purgeExpired() {
+        Integer removed = tx.execute(s -> idempotencyRecordRepository.deleteExpired(Instant.now()));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} expired idempotency records", removed);
+        }
+        Instant now = Instant.now();
+        synchronized (cache) {
+            cache.values().removeIf(s -> s.expiresAt().isBefore(now));
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Stored lookup(String username, String key, String cacheKey) {
+        Instant now = Instant.now();
+        Stored s;
+        synchronized (cache) {
+            s = cache.get(cacheKey);
+        }
+        if (s != null && s.expiresAt().isAfter(now)) return s;
+
+        return idempotencyRecordRepository.findByUsernameAndIdemKeyAndExpiresAtAfter(username, key, now)
+                .map(r -> remember(cacheKey, new Stored(r.getScope(), r.getResponseBody(), r.getExpiresAt())))
+                .orElse(null);
+    }
+
+    private Stored remember(String cacheKey, Stored s) {
+        synchronized (cache) {
+            cache.put(cacheKey, s);
+        }
+        return s;
+    }
+
+    private <T> Stored runAndStore(String username, String key, String scope, Supplier<T> action) {
+        Instant now = Instant.now();
+        try {
+            // akce i zaznam v jedne transakci: bez zaznamu nic, pri souberu na jinem uzlu
+            // spadne unique constraint a cela akce se vrati
+            Stored stored = tx.execute(s -> {
+                // klic pouzity znovu po TTL – stary zaznam muze v tabulce zustat az do purgeExpired
+                idempotencyRecordRepository.deleteExpiredKey(username, key, now);
+                String body = toJson(action.get());
+                idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .username(username)
+                        .idemKey(key)
+                        .scope(scope)
+                        .responseBody(body)
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+                return new Stored(scope, body, now.plus(ttl));
+            });
+            return remember(username + "\n" + key, stored);
+
+        } catch (DataIntegrityViolationException e) {
+            log.info("AUDIT IDEMPOTENCY_RACE actor={} key={} scope={}", username, key, scope);
+            return idempotencyRecordRepository.findByUsernameAndIdemKeyAndExpiresAtAfter(username, key, Instant.now())
+                    .map(r -> remember(username + "\n" + key, new Stored(r.getScope(), r.getResponseBody(), r.getExpiresAt())))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Stored awaitInFlight(CompletableFuture<Stored> running, String key) {
+        try {
+            return running.get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("Request with " + HEADER + " " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Request with " + HEADER + " " + key + " is still in progress");
+        }
+    }
+
+    private <T> T replay(Stored stored, String scope, String key, Class<T> type) {
+        if (!stored.scope().equals(scope)) {
+            throw new ConflictException(HEADER + " " + key + " was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.body(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for idempotency", e);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.web.dto.InvalidationBusStatsResponse;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidace paměťových cache mezi instancemi aplikace přes PostgreSQL {@code NOTIFY}/{@code LISTEN}.
+ * <p>
+ * {@link #publish} pošle {@code pg_notify} v transakci zápisu – Postgres zprávu doručí až po commitu
+ * (po rollbacku vůbec). Každá instance poslouchá na vlastním spojení mimo pool, vlastní zprávy
+ * přeskakuje (lokální cache se invalidují přímo v zápisu). Zprávy odeslané během výpadku spojení
+ * se ztratí, proto se po každém (znovu)připojení lokální cache a indexy přenačtou celé.
+ * <p>
+ * Odpis skladu při checkoutu jde jako {@code PRODUCT_STOCK}. Periodická obnova součtu rozděleného
+ * skladu se neposílá – {@code product.stock} je u něj stejně jen cache (viz {@link ProductCache.Cached#loadedAt()}).
+ */
+@Component
+public class InvalidationBus implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    public enum EntityType {
+        // produkt zmeneny adminem / importem – cache i indexy
+        PRODUCT,
+        // jen sklad produktu (checkout) – staci zahodit cache, atributy se nemeni
+        PRODUCT_STOCK
+    }
+
+    private static final String ALL = "*";
+    private static final int MAX_IDS = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSpecCache productSpecCache;
+    private final ProductAttributeIndex productAttributeIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogVersion catalogVersion;
+
+    private final boolean enabled;
+    private final String channel;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int pollMs;
+    private final long reconnectMs;
+    private final long lagWarnMs;
+
+    // identita teto instance – podle ni se preskakuji vlastni zpravy
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile boolean resyncPending;
+    private volatile Connection connection;
+    private volatile Instant lastEventAt;
+    private Thread listener;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder ownSkipped = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public InvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            ProductRepository productRepository,
+            ProductCache productCache,
+            ProductSpecCache productSpecCache,
+            ProductAttributeIndex productAttributeIndex,
+            ProductSearchIndex productSearchIndex,
+            CatalogVersion catalogVersion,
+            @Value("${app.invalidation.enabled:true}") boolean enabled,
+            @Value("${app.invalidation.channel:app_invalidation}") String channel,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${app.invalidation.poll-ms:500}") int pollMs,
+            @Value("${app.invalidation.reconnect-ms:2000}") long reconnectMs,
+            @Value("${app.invalidation.lag-warn-ms:1000}") long lagWarnMs
+    ) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid app.invalidation.channel: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productSpecCache = productSpecCache;
+        this.productAttributeIndex = productAttributeIndex;
+        this.productSearchIndex = productSearchIndex;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollMs = pollMs;
+        this.reconnectMs = reconnectMs;
+        this.lagWarnMs = lagWarnMs;
+    }
+
+    // ----------------------------
+    // Publish
+    // ----------------------------
+
+    /**
+     * Oznámí ostatním instancím změnu entity a posune verzi katalogu. V transakci se zpráva
+     * odešle až commitem, mimo transakci hned (volat až po dokončeném zápisu).
+     */
+    public void publish(EntityType type, Long id) {
+        if (id == null) return;
+        catalogVersion.bump();
+        send(type + ":" + id);
+    }
+
+    // vice produktu jednou zpravou (checkout); payload NOTIFY ma limit 8000 B -> po davkach
+    public void publish(EntityType type, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return;
+        catalogVersion.bump();
+
+        List<Long> list = List.copyOf(ids);
+        for (int from = 0; from < list.size(); from += MAX_IDS) {
+            List<Long> chunk = list.subList(from, Math.min(list.size(), from + MAX_IDS));
+            send(type + ":" + chunk.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+    }
+
+    // hromadna zmena (import) – ostatni instance misto jednotlivych zprav prenactou vse
+    public void publishAll(EntityType type) {
+        catalogVersion.bump();
+        send(type + ":" + ALL);
+    }
+
+    private void send(String target) {
+        if (!enabled) return;
+
+        String payload = target + ":" + nodeId + ":" + System.currentTimeMillis();
+        jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, channel, payload);
+        published.increment();
+    }
+
+    // ----------------------------
+    // Listen
+    // ----------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) return;
+
+        running = true;
+        listener = new Thread(this::listenLoop, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Invalidation bus started nodeId={} channel={}", nodeId, channel);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        running = false;
+        closeQuietly(connection);
+        if (listener != null) listener.interrupt();
+    }
+
+    private void listenLoop() {
+        boolean firstConnect = true;
+
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, username, password)) {
+                connection = c;
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                connected = true;
+                if (!firstConnect) reconnects.increment();
+                firstConnect = false;
+
+                // co prislo pred LISTEN (nebo behem vypadku), uz nedostaneme
+                resync("connect");
+
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            handle(n.getParameter());
+                        }
+                    }
+                    if (resyncPending) resync("handler_failure");
+                    ping(c);
+                }
+
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                log.warn("Invalidation listener disconnected, reconnecting in {} ms reason={}", reconnectMs, e.getMessage());
+            } finally {
+                connected = false;
+                connection = null;
+            }
+
+            sleep(reconnectMs);
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split(":");
+        EntityType type;
+        List<Long> ids;
+        long sentAt;
+        try {
+            if (parts.length != 4) throw new IllegalArgumentException("expected 4 parts");
+            type = EntityType.valueOf(parts[0]);
+            ids = ALL.equals(parts[1]) ? null : Arrays.stream(parts[1].split(",")).map(Long::valueOf).toList();
+            sentAt = Long.parseLong(parts[3]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalidation bus ignoring malformed payload={}", payload);
+            return;
+        }
+
+        if (nodeId.equals(parts[2])) {
+            ownSkipped.increment();
+            return;
+        }
+
+        received.increment();
+        lastEventAt = Instant.now();
+        catalogVersion.refresh();
+
+        // zpozdeni od odeslani (vcetne commitu); hodiny instanci musi byt synchronizovane
+        long lag = Math.max(0, System.currentTimeMillis() - sentAt);
+        lastLagMs.set(lag);
+        maxLagMs.accumulateAndGet(lag, Math::max);
+        if (lag > lagWarnMs) {
+            log.warn("Invalidation bus lag {} ms type={} ids={} from={}", lag, type, parts[1], parts[2]);
+        }
+
+        if (ids == null) {
+            resync("bulk");
+            return;
+        }
+
+        try {
+            for (Long id : ids) apply(type, id);
+        } catch (RuntimeException e) {
+            // napr. DB nedostupna pri nacitani produktu pro index -> prenacist vse
+            log.warn("Invalidation of {} failed, scheduling resync reason={}", payload, e.getMessage());
+            resyncPending = true;
+        }
+    }
+
+    private void apply(EntityType type, Long id) {
+        switch (type) {
+            case PRODUCT -> {
+                productCache.invalidate(id);
+                productSpecCache.invalidate(id);
+                productRepository.findById(id).ifPresentOrElse(
+                        p -> {
+                            productAttributeIndex.upsert(p);
+                            productSearchIndex.upsert(p);
+                        },
+                        () -> {
+                            productAttributeIndex.remove(id);
+                            productSearchIndex.remove(id);
+                        });
+            }
+            case PRODUCT_STOCK -> productCache.invalidate(id);
+        }
+    }
+
+    /** Zahodí lokální cache produktů a přestaví indexy (po výpadku spojení nebo hromadné změně). */
+    public void resync(String reason) {
+        resyncPending = false;
+        try {
+            productCache.invalidateAll();
+            productSpecCache.invalidateAll();
+            productAttributeIndex.rebuild();
+            productSearchIndex.rebuild();
+            catalogVersion.refresh();
+            resyncs.increment();
+            log.info("Invalidation bus resynced local caches reason={}", reason);
+        } catch (RuntimeException e) {
+            resyncPending = true;
+            log.warn("Invalidation bus resync failed reason={} error={}", reason, e.getMessage());
+        }
+    }
+
+    // getNotifications na mrtvem TCP spojeni nemusi selhat -> kratky dotaz odhali vypadek
+    private static void ping(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("select 1");
+        }
+    }
+
+    public InvalidationBusStatsResponse stats() {
+        return new InvalidationBusStatsResponse(
+                enabled, nodeId, channel, connected,
+                published.sum(), received.sum(), ownSkipped.sum(),
+                reconnects.sum(), resyncs.sum(),
+                lastLagMs.get(), maxLagMs.get(), lastEventAt
+        );
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // pri vypinani nezajimave
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.repo.OrderFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export objednávek (NDJSON / CSV) přímo do výstupního streamu.
+ * <p>
+ * Jeden dotaz s {@code fetchSize} v read-only transakci (Postgres pak čte kurzorem po dávkách,
+ * ne celý výsledek do paměti). Řádky jsou seřazené podle objednávky, takže v paměti je
+ * vždy nejvýš jedna rozpracovaná objednávka – paměť nezávisí na počtu exportovaných objednávek.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String CSV_HEADER =
+            "order_id,created_at,status,owner,total_price,item_id,product_id,sku,product_name,quantity,unit_price";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.export.fetch-size:500}") int fetchSize
+    ) {
+        // vlastni JdbcTemplate, aby fetchSize neovlivnil sdileny bean
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    private record Item(Long id, Long productId, String sku, String name, int quantity, BigDecimal unitPrice) {}
+
+    private static final class CurrentOrder {
+        Long id;
+        Timestamp createdAt;
+        String status;
+        String owner;
+        BigDecimal totalPrice;
+        final List<Item> items = new ArrayList<>();
+    }
+
+    /**
+     * Zapíše objednávky odpovídající filtru (řazené od nejstarší) a vrátí jejich počet.
+     * Volá se z vlákna {@code StreamingResponseBody}.
+     */
+    public long export(OrderFilter filter, Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder("""
+                select o.id, o.created_at, o.status, u.username, o.total_price,
+                       oi.id as item_id, p.id as product_id, p.sku, p.name, oi.quantity, oi.unit_price
+                from orders o
+                join app_user u on u.id = o.owner_id
+                left join order_item oi on oi.order_id = o.id
+                left join product p on p.id = oi.product_id
+                where 1 = 1
+                """);
+        List<Object> args = new ArrayList<>();
+        if (filter.status() != null) {
+            sql.append(" and o.status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.from() != null) {
+            sql.append(" and o.created_at >= ?");
+            args.add(Timestamp.from(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" and o.created_at < ?");
+            args.add(Timestamp.from(filter.to()));
+        }
+        sql.append(" order by o.created_at, o.id, oi.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        CurrentOrder[] current = new CurrentOrder[1];
+        long[] count = new long[1];
+
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            readOnlyTx.executeWithoutResult(s -> jdbc.query(sql.toString(), rs -> {
+                long orderId = rs.getLong("id");
+                CurrentOrder o = current[0];
+
+                if (o == null || o.id != orderId) {
+                    if (o != null) {
+                        write(o, format, writer);
+                        count[0]++;
+                    }
+                    o = readOrder(rs);
+                    current[0] = o;
+                }
+
+                long itemId = rs.getLong("item_id");
+                if (!rs.wasNull()) {
+                    o.items.add(new Item(
+                            itemId,
+                            rs.getLong("product_id"),
+                            rs.getString("sku"),
+                            rs.getString("name"),
+                            rs.getInt("quantity"),
+                            rs.getBigDecimal("unit_price")
+                    ));
+                }
+            }, args.toArray()));
+
+            if (current[0] != null) {
+                write(current[0], format, writer);
+                count[0]++;
+            }
+            writer.flush();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Order export finished format={} status={} from={} to={} orders={}",
+                format, filter.status(), filter.from(), filter.to(), count[0]);
+        return count[0];
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private static CurrentOrder readOrder(ResultSet rs) throws SQLException {
+        CurrentOrder o = new CurrentOrder();
+        o.id = rs.getLong("id");
+        o.createdAt = rs.getTimestamp("created_at");
+        o.status = rs.getString("status");
+        o.owner = rs.getString("username");
+        o.totalPrice = rs.getBigDecimal("total_price");
+        return o;
+    }
+
+    private void write(CurrentOrder o, Format format, Writer writer) {
+        try {
+            if (format == Format.NDJSON) {
+                writeJson(o, writer);
+            } else {
+                writeCsv(o, writer);
+            }
+        } catch (IOException e) {
+            // klient zavrel spojeni -> ukoncit dotaz (vyjimka z callbacku zavre kurzor i transakci)
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeJson(CurrentOrder o, Writer writer) throws IOException {
+        JsonGenerator g = objectMapper.getFactory().createGenerator(writer);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        g.writeStartObject();
+        g.writeNumberField("id", o.id);
+        g.writeStringField("createdAt", o.createdAt.toInstant().toString());
+        g.writeStringField("status", o.status);
+        g.writeStringField("owner", o.owner);
+        g.writeNumberField("totalPrice", o.totalPrice);
+        g.writeArrayFieldStart("items");
+        for (Item i : o.items) {
+            g.writeStartObject();
+            g.writeNumberField("id", i.id());
+            g.writeNumberField("productId", i.productId());
+            g.writeStringField("sku", i.sku());
+            g.writeStringField("productName", i.name());
+            g.writeNumberField("quantity", i.quantity());
+            g.writeNumberField("unitPrice", i.unitPrice());
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+        g.flush();
+
+        writer.write('\n');
+    }
+
+    // jeden radek na polozku; objednavka bez polozek = jeden radek s prazdnymi sloupci polozky
+    private static void writeCsv(CurrentOrder o, Writer writer) throws IOException {
+        String prefix = o.id + "," + o.createdAt.toInstant() + "," + o.status + "," + csv(o.owner) + "," + o.totalPrice + ",";
+        if (o.items.isEmpty()) {
+            writer.write(prefix);
+            writer.write(",,,,,\n");
+            return;
+        }
+        for (Item i : o.items) {
+            writer.write(prefix);
+            writer.write(i.id() + "," + i.productId() + "," + csv(i.sku()) + "," + csv(i.name()) + ","
+                    + i.quantity() + "," + i.unitPrice() + "\n");
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static Format parseFormat(String format) {
+        if (format == null || format.isBlank()) return Format.NDJSON;
+        return switch (format.trim().toLowerCase()) {
+            case "ndjson", "jsonl" -> Format.NDJSON;
+            case "csv" -> Format.CSV;
+            default -> throw new IllegalArgumentException("Unsupported export format: " + format);
+        };
+    }
+
+    public static String contentType(Format format) {
+        return format == Format.CSV ? "text/csv; charset=UTF-8" : "application/x-ndjson";
+    }
+
+    public static String fileName(Format format) {
+        return format == Format.CSV ? "orders.csv" : "orders.ndjson";
+    }
+}
@@ -4,20 +4,39 @@ import cz.osu.opr3_backend.model.entity.Order;
 import cz.osu.opr3_backend.model.entity.OrderItem;
 import cz.osu.opr3_backend.model.entity.Product;
 import cz.osu.opr3_backend.model.entity.User;
+import cz.osu.opr3_backend.model.repo.OrderCursor;
+import cz.osu.opr3_backend.model.repo.OrderFilter;
 import cz.osu.opr3_backend.model.repo.OrderRepository;
-import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.model.repo.OrderItemRepository;
 import cz.osu.opr3_backend.model.repo.UserRepository;
 import cz.osu.opr3_backend.security.CurrentUser;
 import cz.osu.opr3_backend.security.SecurityUtils;
+import cz.osu.opr3_backend.web.dto.order.OrderBulkStatusRequest;
+import cz.osu.opr3_backend.web.dto.order.OrderBulkStatusResponse;
 import cz.osu.opr3_backend.web.dto.order.OrderItemAddRequest;
+import cz.osu.opr3_backend.web.dto.order.OrderPageResponse;
+import cz.osu.opr3_backend.web.dto.order.OrderResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,8 +45,16 @@ public class OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductCache productCache;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.orders.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.orders.max-page-size:200}")
+    private int maxPageSize;
 
     // ----------------------------
     // Helpers
@@ -49,8 +76,10 @@ public class OrderService {
                 .orElseThrow(() -> new NotFoundException("Order " + id + " not found"));
     }
 
-    public Order getAnyAdmin(Long id) {
-        return orderRepository.findById(id)
+    @Transactional(readOnly = true)
+    public OrderResponse getAnyAdmin(Long id) {
+        return orderRepository.findWithItemsById(id)
+                .map(OrderResponse::of)
                 .orElseThrow(() -> new NotFoundException("Order " + id + " not found"));
     }
 
@@ -74,28 +103,33 @@ public class OrderService {
         return saved;
     }
 
-    public List<Order> listMy() {
+    @Transactional(readOnly = true)
+    public OrderPageResponse listMy(Order.Status status, Instant from, Instant to, String cursor, Integer limit) {
         String actor = SecurityUtils.usernameOrAnonymous();
         String username = CurrentUser.username();
         if (username == null) throw new UnauthorizedException("Not authenticated");
 
-        List<Order> res = orderRepository.findAllByOwner_UsernameOrderByCreatedAtDesc(username);
-        log.info("AUDIT ORDER_LIST_MY actor={} owner={} count={}", actor, username, res.size());
+        OrderPageResponse res = page(new OrderFilter(username, status, from, to), cursor, limit);
+        log.info("AUDIT ORDER_LIST_MY actor={} owner={} status={} from={} to={} count={}",
+                actor, username, status, from, to, res.items().size());
         return res;
     }
 
-    public List<Order> listAllAdmin() {
+    @Transactional(readOnly = true)
+    public OrderPageResponse listAllAdmin(Order.Status status, Instant from, Instant to, String cursor, Integer limit) {
         String actor = SecurityUtils.usernameOrAnonymous();
-        List<Order> res = orderRepository.findAllByOrderByCreatedAtDesc();
-        log.info("AUDIT ORDER_LIST_ALL_ADMIN actor={} count={}", actor, res.size());
+        OrderPageResponse res = page(new OrderFilter(null, status, from, to), cursor, limit);
+        log.info("AUDIT ORDER_LIST_ALL_ADMIN actor={} status={} from={} to={} count={}",
+                actor, status, from, to, res.items().size());
         return res;
     }
 
-    public Order get(Long id) {
+    @Transactional(readOnly = true)
+    public OrderResponse get(Long id) {
         String actor = SecurityUtils.usernameOrAnonymous();
         Order o = getMy(id);
         log.info("AUDIT ORDER_GET_MY actor={} orderId={} owner={}", actor, o.getId(), o.getOwner().getUsername());
-        return o;
+        return OrderResponse.of(o);
     }
 
     // ----------------------------
@@ -119,11 +153,9 @@ public class OrderService {
             throw new IllegalArgumentException("Quantity must be > 0");
         }
 
-        Product product = productRepository.findById(req.productId())
-                .orElseThrow(() -> new NotFoundException("Product " + req.productId() + " not found"));
-
         for (OrderItem oi : order.getItems()) {
-            if (oi.getProduct().getId().equals(product.getId())) {
+            if (oi.getProduct().getId().equals(req.productId())) {
+                Product product = oi.getProduct();
                 int oldQty = oi.getQuantity();
                 int newQty = oldQty + req.quantity();
                 oi.setQuantity(newQty);
@@ -139,6 +171,9 @@ public class OrderService {
             }
         }
 
+        // produkt z cache – odpojena kopie staci jako reference pro novou polozku
+        Product product = productCache.get(req.productId()).product();
+
         OrderItem item = OrderItem.builder()
                 .order(order)
                 .product(product)
@@ -149,6 +184,8 @@ public class OrderService {
         order.getItems().add(item);
         recalcTotal(order);
 
+        // polozku persistujeme primo; merge pres objednavku by produkt z cache znovu nacital z DB
+        orderItemRepository.save(item);
         Order saved = orderRepository.save(order);
 
         log.info("AUDIT ORDER_ADD_ITEM_NEW actor={} orderId={} owner={} productId={} sku={} qty={} unitPrice={} totalPrice={}",
@@ -213,7 +250,7 @@ public class OrderService {
     public Order updateStatusAdmin(Long orderId, Order.Status newStatus) {
         String actor = SecurityUtils.usernameOrAnonymous();
 
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order " + orderId + " not found"));
 
         Order.Status oldStatus = order.getStatus();
@@ -233,6 +270,118 @@ public class OrderService {
         return saved;
     }
 
+    /**
+     * Hromadná změna stavu jedním UPDATE (bez načítání entit). Pravidla přechodů jsou stejná
+     * jako u jednotlivé změny – do SQL jdou jako množina povolených výchozích stavů.
+     */
+    @Transactional
+    public OrderBulkStatusResponse updateStatusBulkAdmin(OrderBulkStatusRequest req) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+        Order.Status to = req.status();
+
+        boolean byIds = req.ids() != null && !req.ids().isEmpty();
+        if (!byIds && req.fromStatus() == null) {
+            throw new IllegalArgumentException("Either 'ids' or 'fromStatus' must be provided");
+        }
+        if (!byIds && req.from() != null && req.to() != null && !req.from().isBefore(req.to())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        EnumSet<Order.Status> allowedFrom = EnumSet.noneOf(Order.Status.class);
+        for (Order.Status s : Order.Status.values()) {
+            if (isAllowedTransition(s, to)) allowedFrom.add(s);
+        }
+        if (!byIds) {
+            // filtr podle stavu, ktery se na cil prevest neda -> nic k aktualizaci
+            allowedFrom.retainAll(EnumSet.of(req.fromStatus()));
+        }
+
+        // UPDATE ... FROM (SELECT ... FOR UPDATE) vraci id i puvodni stav zmenenych radku
+        StringBuilder sql = new StringBuilder("""
+                update orders o set status = ?, version = o.version + 1
+                from (select id, status from orders where status = any(?)""");
+        List<Object> args = new ArrayList<>();
+        args.add(to.name());
+        args.add(allowedFrom.stream().map(Enum::name).toArray(String[]::new));
+
+        Long[] ids = byIds ? new LinkedHashSet<>(req.ids()).toArray(Long[]::new) : null;
+        if (byIds) {
+            sql.append(" and id = any(?)");
+            args.add(ids);
+        } else {
+            if (req.from() != null) {
+                sql.append(" and created_at >= ?");
+                args.add(Timestamp.from(req.from()));
+            }
+            if (req.to() != null) {
+                sql.append(" and created_at < ?");
+                args.add(Timestamp.from(req.to()));
+            }
+        }
+        sql.append(" for update) old where o.id = old.id returning o.id, old.status");
+
+        List<OrderBulkStatusResponse.Result> results = new ArrayList<>();
+        if (!allowedFrom.isEmpty()) {
+            results.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql.toString());
+                for (int i = 0; i < args.size(); i++) {
+                    Object a = args.get(i);
+                    if (a instanceof String[] arr) {
+                        ps.setArray(i + 1, con.createArrayOf("varchar", arr));
+                    } else if (a instanceof Long[] arr) {
+                        ps.setArray(i + 1, con.createArrayOf("bigint", arr));
+                    } else {
+                        ps.setObject(i + 1, a);
+                    }
+                }
+                return ps;
+            }, (rs, i) -> new OrderBulkStatusResponse.Result(
+                    rs.getLong(1),
+                    OrderBulkStatusResponse.Outcome.UPDATED,
+                    Order.Status.valueOf(rs.getString(2))
+            )));
+        }
+        int updated = results.size();
+
+        // u seznamu id dohledame, proc se zbytek nezmenil
+        int notFound = 0;
+        int invalid = 0;
+        if (byIds) {
+            Map<Long, Order.Status> current = new HashMap<>();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("select id, status from orders where id = any(?)");
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                return ps;
+            }, rs -> {
+                current.put(rs.getLong(1), Order.Status.valueOf(rs.getString(2)));
+            });
+
+            Map<Long, OrderBulkStatusResponse.Result> byId = results.stream()
+                    .collect(Collectors.toMap(OrderBulkStatusResponse.Result::id, Function.identity()));
+            results.clear();
+            for (Long id : ids) {
+                OrderBulkStatusResponse.Result r = byId.get(id);
+                if (r == null) {
+                    Order.Status st = current.get(id);
+                    if (st == null) {
+                        r = new OrderBulkStatusResponse.Result(id, OrderBulkStatusResponse.Outcome.NOT_FOUND, null);
+                        notFound++;
+                    } else {
+                        r = new OrderBulkStatusResponse.Result(id, OrderBulkStatusResponse.Outcome.INVALID_TRANSITION, st);
+                        invalid++;
+                    }
+                }
+                results.add(r);
+            }
+        }
+
+        log.info("AUDIT ORDER_STATUS_BULK_ADMIN actor={} target={} mode={} fromStatus={} from={} to={} requested={} updated={} notFound={} invalidTransition={}",
+                actor, to, byIds ? "ids" : "filter", req.fromStatus(), req.from(), req.to(),
+                byIds ? ids.length : updated, updated, notFound, invalid);
+
+        return new OrderBulkStatusResponse(to, updated, notFound, invalid, results);
+    }
+
     private boolean isAllowedTransition(Order.Status from, Order.Status to) {
         return switch (from) {
             case NEW -> (to == Order.Status.PAID || to == Order.Status.CANCELLED);
@@ -242,6 +391,30 @@ public class OrderService {
         };
     }
 
+    // keyset stranka: nejdriv klice (index), pak objednavky stranky s polozkami jednim dotazem
+    private OrderPageResponse page(OrderFilter filter, String cursor, Integer limit) {
+        int size = (limit == null) ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        // o jeden vic -> vime, jestli existuje dalsi stranka
+        List<OrderCursor> keys = orderRepository.findPageKeys(filter, OrderCursor.decode(cursor), size + 1);
+        boolean hasMore = keys.size() > size;
+        if (hasMore) keys = keys.subList(0, size);
+        if (keys.isEmpty()) return new OrderPageResponse(List.of(), null);
+
+        Map<Long, Order> byId = orderRepository.findAllWithItemsByIdIn(keys.stream().map(OrderCursor::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity(), (a, b) -> a));
+
+        List<OrderResponse> items = keys.stream()
+                .map(k -> byId.get(k.id()))
+                .filter(Objects::nonNull)
+                .map(OrderResponse::of)
+                .toList();
+
+        String next = hasMore ? keys.get(keys.size() - 1).encode() : null;
+        return new OrderPageResponse(items, next);
+    }
+
     private void recalcTotal(Order order) {
         BigDecimal total = BigDecimal.ZERO;
         for (OrderItem oi : order.getItems()) {
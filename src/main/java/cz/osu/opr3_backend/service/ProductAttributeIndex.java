@@ -0,0 +1,187 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Invertovaný index nad atributy ze spec: kategorie -> id, (kategorie, socket) -> id
+ * a pole seřazená podle wattage/tdp. Staví se při startu a pak se udržuje přírůstkově
+ * z {@link ProductService} – zápis přepočítá jen dotčené klíče a seřazená pole jedné kategorie.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductAttributeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductAttributeIndex.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSpecCache productSpecCache;
+
+    private record Entry(Long id, Product.Category category, String socket, Integer tdp, Integer wattage) {}
+
+    // ids seřazené podle hodnoty atributu (values[i] patří k ids[i]), neměnné – při změně se nahradí celé
+    private record Sorted(int[] values, long[] ids) {
+        static final Sorted EMPTY = new Sorted(new int[0], new long[0]);
+    }
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<Product.Category, Set<Long>> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> bySocket = new ConcurrentHashMap<>();
+    private final Map<Product.Category, Sorted> byWattage = new ConcurrentHashMap<>();
+    private final Map<Product.Category, Sorted> byTdp = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        byId.clear();
+        byCategory.clear();
+        bySocket.clear();
+        byWattage.clear();
+        byTdp.clear();
+
+        List<Product> products = productRepository.findAll();
+        for (Product p : products) {
+            add(entryOf(p));
+        }
+        for (Product.Category c : Product.Category.values()) {
+            resort(c);
+        }
+
+        log.info("Product attribute index built products={}", products.size());
+    }
+
+    public synchronized void upsert(Product product) {
+        if (product.getId() == null) return;
+
+        Entry next = entryOf(product);
+        Entry prev = byId.get(product.getId());
+        if (next.equals(prev)) return;
+
+        if (prev != null) drop(prev);
+        add(next);
+
+        resort(next.category());
+        if (prev != null && prev.category() != next.category()) resort(prev.category());
+    }
+
+    public synchronized void remove(Long productId) {
+        if (productId == null) return;
+
+        Entry prev = byId.get(productId);
+        if (prev == null) return;
+
+        drop(prev);
+        resort(prev.category());
+    }
+
+    // ----------------------------
+    // Lookups
+    // ----------------------------
+
+    public Set<Long> byCategory(Product.Category category) {
+        Set<Long> ids = byCategory.get(category);
+        return ids != null ? Set.copyOf(ids) : Set.of();
+    }
+
+    public Set<Long> bySocket(Product.Category category, String socket) {
+        if (socket == null) return Set.of();
+        Set<Long> ids = bySocket.get(socketKey(category, socket));
+        return ids != null ? Set.copyOf(ids) : Set.of();
+    }
+
+    public List<Long> withWattageAtLeast(Product.Category category, int minWattage) {
+        Sorted s = byWattage.getOrDefault(category, Sorted.EMPTY);
+        return toList(s.ids(), lowerBound(s.values(), minWattage), s.ids().length);
+    }
+
+    public List<Long> withTdpAtMost(Product.Category category, int maxTdp) {
+        Sorted s = byTdp.getOrDefault(category, Sorted.EMPTY);
+        return toList(s.ids(), 0, lowerBound(s.values(), maxTdp + 1));
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Entry entryOf(Product p) {
+        ProductSpec spec = productSpecCache.get(p);
+        return new Entry(p.getId(), p.getCategory(), spec.socket(), spec.tdp(), spec.wattage());
+    }
+
+    private void add(Entry e) {
+        byId.put(e.id(), e);
+        byCategory.computeIfAbsent(e.category(), c -> ConcurrentHashMap.newKeySet()).add(e.id());
+        if (e.socket() != null) {
+            bySocket.computeIfAbsent(socketKey(e.category(), e.socket()), k -> ConcurrentHashMap.newKeySet()).add(e.id());
+        }
+    }
+
+    private void drop(Entry e) {
+        byId.remove(e.id());
+        Set<Long> cat = byCategory.get(e.category());
+        if (cat != null) cat.remove(e.id());
+        if (e.socket() != null) {
+            Set<Long> sock = bySocket.get(socketKey(e.category(), e.socket()));
+            if (sock != null) sock.remove(e.id());
+        }
+    }
+
+    // seřazená pole přepočítáme jen pro jednu kategorii
+    private void resort(Product.Category category) {
+        Set<Long> ids = byCategory.getOrDefault(category, Set.of());
+        List<Entry> entries = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        byWattage.put(category, sorted(entries.stream().filter(e -> e.wattage() != null).toList(), Entry::wattage));
+        byTdp.put(category, sorted(entries.stream().filter(e -> e.tdp() != null).toList(), Entry::tdp));
+    }
+
+    private static Sorted sorted(List<Entry> list, ToIntFunction<Entry> value) {
+        if (list.isEmpty()) return Sorted.EMPTY;
+
+        Entry[] arr = list.toArray(new Entry[0]);
+        Arrays.sort(arr, (a, b) -> Integer.compare(value.applyAsInt(a), value.applyAsInt(b)));
+
+        int[] values = new int[arr.length];
+        long[] ids = new long[arr.length];
+        for (int i = 0; i < arr.length; i++) {
+            values[i] = value.applyAsInt(arr[i]);
+            ids[i] = arr[i].id();
+        }
+        return new Sorted(values, ids);
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static List<Long> toList(long[] ids, int from, int to) {
+        List<Long> res = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) res.add(ids[i]);
+        return res;
+    }
+
+    private static String socketKey(Product.Category category, String socket) {
+        return category.name() + ":" + socket.trim().toUpperCase(Locale.ROOT);
+    }
+}
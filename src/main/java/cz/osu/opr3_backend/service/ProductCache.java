@@ -0,0 +1,226 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.web.dto.ProductCacheStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Omezená cache produktů podle ID (LRU + TTL) před {@code productRepository.findById}.
+ * <p>
+ * V cache je odpojená kopie produktu, která se nikomu nepředává – každé čtení dostane vlastní
+ * kopii, takže ji volající může připojit jako referenci k nové položce a nic nesdílí.
+ * Souběžné miss na stejné ID čekají na jedno načtení z DB. Zápisy produktu invalidují
+ * záznam hned a znovu po commitu; sklad v cache může být starý (viz {@link Cached#loadedAt()}).
+ */
+@Component
+public class ProductCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+
+    private final ProductRepository productRepository;
+    private final int maxSize;
+    private final Duration ttl;
+
+    /** Kopie produktu pro volajícího a čas načtení z DB. */
+    public record Cached(Product product, Instant loadedAt) {}
+
+    private record Entry(Product product, Instant loadedAt, long expiresAt) {
+        Cached view() {
+            return new Cached(copy(product), loadedAt);
+        }
+    }
+
+    private final Map<Long, Entry> entries;
+    private final ConcurrentHashMap<Long, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    // zvysi se pri kazde invalidaci; nacteni, behem ktereho se invalidovalo, se do cache neulozi
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductCache(
+            ProductRepository productRepository,
+            @Value("${app.products.cache.max-size:10000}") int maxSize,
+            @Value("${app.products.cache.ttl:PT5M}") Duration ttl
+    ) {
+        this.productRepository = productRepository;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+
+        // access-order LinkedHashMap = LRU
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Produkt podle ID – z cache, jinak z DB (souběžná volání pro stejné ID sdílí jedno načtení).
+     *
+     * @throws NotFoundException produkt neexistuje (neexistence se necachuje)
+     */
+    public Cached get(Long id) {
+        Entry cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return cached.view();
+        }
+        misses.increment();
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loading.putIfAbsent(id, mine);
+        if (running != null) {
+            return await(running).view();
+        }
+
+        try {
+            long startEpoch = epoch.get();
+            Entry loaded = load(id);
+            if (epoch.get() == startEpoch) {
+                synchronized (entries) {
+                    entries.put(id, loaded);
+                }
+            }
+            mine.complete(loaded);
+            return loaded.view();
+
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            loading.remove(id, mine);
+        }
+    }
+
+    // ----------------------------
+    // Invalidation
+    // ----------------------------
+
+    /** Odebere produkt z cache hned a (v transakci) ještě jednou po commitu. */
+    public void invalidate(Long productId) {
+        if (productId == null) return;
+        invalidateNow(List.of(productId));
+        afterCommit(() -> invalidateNow(List.of(productId)));
+    }
+
+    public void invalidate(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(productIds);
+        invalidateNow(ids);
+        afterCommit(() -> invalidateNow(ids));
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        synchronized (entries) {
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+        loading.clear();
+    }
+
+    public ProductCacheStatsResponse stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return ProductCacheStatsResponse.of(size, maxSize, ttl, hits.sum(), misses.sum(), loads.sum(),
+                evictions.sum(), invalidations.sum());
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Entry lookup(Long id) {
+        synchronized (entries) {
+            Entry e = entries.get(id);
+            if (e == null) return null;
+            if (e.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(id);
+                return null;
+            }
+            return e;
+        }
+    }
+
+    private Entry load(Long id) {
+        loads.increment();
+        Product p = productRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
+        return new Entry(copy(p), Instant.now(), System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    private static Entry await(CompletableFuture<Entry> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private void invalidateNow(List<Long> ids) {
+        epoch.incrementAndGet();
+        synchronized (entries) {
+            for (Long id : ids) {
+                if (entries.remove(id) != null) invalidations.increment();
+            }
+        }
+        ids.forEach(loading::remove);
+        log.debug("Product cache invalidated productIds={}", ids);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // odpojena kopie – spec je JSON text, ostatni pole jsou immutable hodnoty
+    private static Product copy(Product p) {
+        return Product.builder()
+                .id(p.getId())
+                .version(p.getVersion())
+                .sku(p.getSku())
+                .name(p.getName())
+                .category(p.getCategory())
+                .price(p.getPrice())
+                .spec(p.getSpec())
+                .stock(p.getStock())
+                .stockShards(p.getStockShards())
+                .flashSale(p.getFlashSale())
+                .build();
+    }
+}
@@ -0,0 +1,430 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.security.SecurityUtils;
+import cz.osu.opr3_backend.web.dto.ProductImportResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hromadný import produktů (CSV / NDJSON) s upsertem podle SKU.
+ * <p>
+ * Vstup se čte průběžně a validní řádky jdou po dávkách jedním
+ * {@code INSERT ... ON CONFLICT (sku) DO UPDATE} (každá dávka ve vlastní transakci).
+ * Nezměněné řádky se nepřepisují (verze zůstane), u produktů s rozděleným skladem
+ * nebo ve flash-sale se sklad z importu ignoruje. Když dávka selže, zopakuje se po řádcích,
+ * aby chyba patřila konkrétnímu řádku. Na konci se lokálně přenačtou cache a indexy
+ * a ostatním instancím se pošle jedna hromadná invalidace.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_SKU_LENGTH = 64;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final String UPSERT_TAIL = """
+             on conflict (sku) do update set
+                name = excluded.name,
+                category = excluded.category,
+                price = excluded.price,
+                spec = excluded.spec,
+                stock = case when product.stock_shards > 0 or product.flash_sale then product.stock else excluded.stock end,
+                version = coalesce(product.version, 0) + 1
+            where (product.name, product.category, product.price, product.spec, product.stock)
+                is distinct from (excluded.name, excluded.category, excluded.price, excluded.spec,
+                    case when product.stock_shards > 0 or product.flash_sale then product.stock else excluded.stock end)
+            returning sku, (xmax = 0) as inserted,
+                (coalesce(stock_shards, 0) > 0 or coalesce(flash_sale, false)) as stock_kept
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final InvalidationBus invalidationBus;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            InvalidationBus invalidationBus,
+            @Value("${app.products.import.batch-size:500}") int batchSize,
+            @Value("${app.products.import.max-errors:1000}") int maxErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        // 6 parametru na radek, Postgres jich v jednom prikazu unese max. 65535
+        this.batchSize = Math.max(1, Math.min(batchSize, 10_000));
+        this.maxErrors = maxErrors;
+    }
+
+    private record Row(long line, String sku, String name, String category, BigDecimal price, int stock, String spec) {}
+
+    // prubezny stav jednoho importu
+    private static final class Progress {
+        long rows;
+        int inserted;
+        int updated;
+        int unchanged;
+        int stockKept;
+        int failed;
+        final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        boolean errorsTruncated;
+    }
+
+    /**
+     * Načte celý vstup a vrátí souhrn s chybami po řádcích (řádek = číslo řádku vstupu,
+     * u CSV včetně hlavičky). Chybný řádek import nepřeruší.
+     */
+    public ProductImportResponse importProducts(InputStream in, Format format) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+        long started = System.currentTimeMillis();
+
+        Progress progress = new Progress();
+        Map<String, Row> batch = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, progress, batch);
+            } else {
+                readNdjson(reader, progress, batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // co uz proslo, zustava ulozene -> cache musi odpovidat DB i pri preruseni
+            if (!batch.isEmpty()) flush(batch, progress);
+            if (progress.inserted + progress.updated > 0) {
+                invalidationBus.resync("import");
+                invalidationBus.publishAll(InvalidationBus.EntityType.PRODUCT);
+            }
+        }
+
+        long tookMs = System.currentTimeMillis() - started;
+        log.info("AUDIT PRODUCT_IMPORT actor={} format={} rows={} inserted={} updated={} unchanged={} stockKept={} failed={} tookMs={}",
+                actor, format, progress.rows, progress.inserted, progress.updated, progress.unchanged,
+                progress.stockKept, progress.failed, tookMs);
+
+        return new ProductImportResponse(progress.rows, progress.inserted, progress.updated, progress.unchanged,
+                progress.stockKept, progress.failed, List.copyOf(progress.errors), progress.errorsTruncated, tookMs);
+    }
+
+    // ----------------------------
+    // Parsing
+    // ----------------------------
+
+    private void readCsv(Reader reader, Progress progress, Map<String, Row> batch) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+
+        List<String> header = csv.next();
+        if (header == null) return;
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = i == 0 ? header.get(i).replace("\uFEFF", "") : header.get(i);   // BOM z Excelu
+            columns.put(name.trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("sku", "name", "category", "price", "stock")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+
+        List<String> values;
+        while ((values = csv.next()) != null) {
+            long line = csv.recordLine();
+            if (values.size() == 1 && values.get(0).isBlank()) continue;
+
+            progress.rows++;
+            String sku = column(values, columns, "sku");
+            try {
+                add(row(line, sku, column(values, columns, "name"), column(values, columns, "category"),
+                        column(values, columns, "price"), column(values, columns, "stock"),
+                        column(values, columns, "spec")), progress, batch);
+            } catch (IllegalArgumentException e) {
+                fail(progress, line, sku, e.getMessage());
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader lines, Progress progress, Map<String, Row> batch) throws IOException {
+        String text;
+        long line = 0;
+
+        while ((text = lines.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+
+            progress.rows++;
+            String sku = null;
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (node == null || !node.isObject()) throw new IllegalArgumentException("Line is not a JSON object");
+
+                sku = text(node, "sku");
+                JsonNode spec = node.get("spec");
+                String specText = spec == null || spec.isNull() ? null
+                        : spec.isTextual() ? spec.asText() : spec.toString();
+
+                add(row(line, sku, text(node, "name"), text(node, "category"),
+                        text(node, "price"), text(node, "stock"), specText), progress, batch);
+
+            } catch (JsonProcessingException e) {
+                fail(progress, line, sku, "Invalid JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                fail(progress, line, sku, e.getMessage());
+            }
+        }
+    }
+
+    // validace jako u ProductCreateRequest
+    private Row row(long line, String sku, String name, String category, String price, String stock, String spec) {
+        if (sku == null || sku.isBlank()) throw new IllegalArgumentException("sku is required");
+        if (sku.length() > MAX_SKU_LENGTH) throw new IllegalArgumentException("sku must be at most " + MAX_SKU_LENGTH + " characters");
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("name is required");
+        if (name.length() > MAX_NAME_LENGTH) throw new IllegalArgumentException("name must be at most " + MAX_NAME_LENGTH + " characters");
+
+        Product.Category cat;
+        try {
+            cat = Product.Category.valueOf(category == null ? "" : category.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown category: " + category);
+        }
+
+        BigDecimal priceValue;
+        int stockValue;
+        try {
+            priceValue = new BigDecimal(price == null ? "" : price.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price must be a number");
+        }
+        try {
+            stockValue = Integer.parseInt(stock == null ? "" : stock.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stock must be an integer");
+        }
+        if (priceValue.signum() <= 0) throw new IllegalArgumentException("price must be > 0");
+        if (stockValue < 0) throw new IllegalArgumentException("stock must be >= 0");
+
+        String specValue = spec == null || spec.isBlank() ? null : spec;
+        if (specValue != null && !ProductSpec.parse(specValue, objectMapper).valid()) {
+            throw new IllegalArgumentException("spec must be valid JSON");
+        }
+
+        return new Row(line, sku.trim(), name.trim(), cat.name(), priceValue, stockValue, specValue);
+    }
+
+    // stejne SKU dvakrat v jedne davce by ON CONFLICT odmitl -> nejdriv zapsat davku (plati posledni radek)
+    private void add(Row row, Progress progress, Map<String, Row> batch) {
+        if (batch.containsKey(row.sku()) || batch.size() >= batchSize) {
+            flush(batch, progress);
+        }
+        batch.put(row.sku(), row);
+    }
+
+    // ----------------------------
+    // Writing
+    // ----------------------------
+
+    private void flush(Map<String, Row> batch, Progress progress) {
+        List<Row> rows = List.copyOf(batch.values());
+        batch.clear();
+
+        try {
+            apply(upsert(rows), rows, progress);
+        } catch (DataAccessException e) {
+            // chyba jednoho radku shodi celou davku -> po jednom, at vime ktery
+            log.warn("Product import batch of {} rows failed, retrying row by row reason={}",
+                    rows.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (Row row : rows) {
+                try {
+                    apply(upsert(List.of(row)), List.of(row), progress);
+                } catch (DataAccessException rowError) {
+                    fail(progress, row.line(), row.sku(), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private record Upserted(boolean inserted, boolean stockKept) {}
+
+    private Map<String, Upserted> upsert(List<Row> rows) {
+        StringBuilder sql = new StringBuilder("insert into product (sku, name, category, price, stock, spec, version) values ");
+        List<Object> args = new ArrayList<>(rows.size() * 6);
+        for (int i = 0; i < rows.size(); i++) {
+            Row r = rows.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, cast(? as jsonb), 0)");
+            args.add(r.sku());
+            args.add(r.name());
+            args.add(r.category());
+            args.add(r.price());
+            args.add(r.stock());
+            args.add(r.spec());
+        }
+        sql.append(UPSERT_TAIL);
+
+        Map<String, Upserted> result = new HashMap<>();
+        tx.executeWithoutResult(s -> jdbcTemplate.query(sql.toString(), rs -> {
+            result.put(rs.getString("sku"), new Upserted(rs.getBoolean("inserted"), rs.getBoolean("stock_kept")));
+        }, args.toArray()));
+        return result;
+    }
+
+    // radky, ktere RETURNING nevratil, se nezmenily
+    private static void apply(Map<String, Upserted> upserted, List<Row> rows, Progress progress) {
+        for (Row row : rows) {
+            Upserted u = upserted.get(row.sku());
+            if (u == null) {
+                progress.unchanged++;
+                continue;
+            }
+            if (u.inserted()) progress.inserted++;
+            else progress.updated++;
+            if (u.stockKept()) progress.stockKept++;
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private void fail(Progress progress, long line, String sku, String message) {
+        progress.failed++;
+        if (progress.errors.size() < maxErrors) {
+            progress.errors.add(new ProductImportResponse.RowError(line, sku, message));
+        } else {
+            progress.errorsTruncated = true;
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        return i == null || i >= values.size() ? null : values.get(i);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    public static Format parseFormat(String format, String contentType) {
+        if (format == null || format.isBlank()) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")
+                    ? Format.CSV : Format.NDJSON;
+        }
+        return switch (format.trim().toLowerCase(Locale.ROOT)) {
+            case "ndjson", "jsonl" -> Format.NDJSON;
+            case "csv" -> Format.CSV;
+            default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+        };
+    }
+
+    /**
+     * Minimální CSV čtečka (RFC 4180): oddělovač čárka, pole v uvozovkách mohou obsahovat
+     * čárky, zalomení řádků a zdvojené uvozovky.
+     */
+    private static final class CsvReader {
+
+        private final Reader reader;
+        private long line = 1;
+        private long recordLine;
+        private int peeked = -2;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        // cislo radku, na kterem zacal posledni zaznam
+        long recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+
+            recordLine = line;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IllegalArgumentException("Unterminated quoted field starting at line " + recordLine);
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' && peek() == '\n') {
+                    // CRLF – konec zaznamu resi '\n'
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') line++;
+                    values.add(field.toString());
+                    return values;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) peeked = reader.read();
+            return peeked;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Fulltext nad názvem a SKU produktů: trigramový index v paměti (jako pg_trgm – slova
+ * doplněná mezerami, bez diakritiky a velikosti písmen). Staví se při startu a udržuje
+ * z {@link ProductService} a {@link InvalidationBus}.
+ * <p>
+ * Skóre = podíl trigramů dotazu, které produkt obsahuje (poslední slovo dotazu bez koncové
+ * mezery, takže funguje i rozepsaný prefix), plus bonus za podřetězec, prefix a shodu SKU.
+ * Překlepy projdou, pokud zůstane dost společných trigramů ({@code app.products.search.min-score}).
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+
+    private final ProductRepository productRepository;
+    private final double minScore;
+
+    private record Entry(Long id, Product.Category category, String name, String sku, Set<String> trigrams) {}
+
+    private record Hit(Entry entry, double score) {}
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public ProductSearchIndex(
+            ProductRepository productRepository,
+            @Value("${app.products.search.min-score:0.4}") double minScore
+    ) {
+        this.productRepository = productRepository;
+        this.minScore = minScore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        byId.clear();
+        postings.clear();
+
+        List<Product> products = productRepository.findAll();
+        for (Product p : products) {
+            add(entryOf(p));
+        }
+
+        log.info("Product search index built products={} trigrams={}", products.size(), postings.size());
+    }
+
+    public synchronized void upsert(Product product) {
+        if (product.getId() == null) return;
+
+        Entry next = entryOf(product);
+        Entry prev = byId.get(product.getId());
+        if (prev != null) drop(prev);
+        add(next);
+    }
+
+    public synchronized void remove(Long productId) {
+        if (productId == null) return;
+
+        Entry prev = byId.get(productId);
+        if (prev != null) drop(prev);
+    }
+
+    // ----------------------------
+    // Search
+    // ----------------------------
+
+    /**
+     * ID produktů odpovídajících dotazu, seřazená od nejlepší shody.
+     *
+     * @param category volitelný filtr kategorie
+     * @param limit    max. počet výsledků
+     */
+    public List<Long> search(String q, Product.Category category, int limit) {
+        String query = normalize(q);
+        if (query.isEmpty() || limit <= 0) return List.of();
+
+        List<Hit> hits = query.length() < 3
+                ? scan(query, category)
+                : lookup(query, category);
+
+        return hits.stream()
+                .sorted(Comparator.comparingDouble(Hit::score).reversed()
+                        .thenComparingInt(h -> h.entry().name().length())
+                        .thenComparing(h -> h.entry().id()))
+                .limit(limit)
+                .map(h -> h.entry().id())
+                .toList();
+    }
+
+    // kandidati = produkty s aspon jednim spolecnym trigramem
+    private List<Hit> lookup(String query, Product.Category category) {
+        Set<String> qTrigrams = trigrams(query, true);
+
+        Map<Long, Integer> common = new HashMap<>();
+        for (String t : qTrigrams) {
+            Set<Long> ids = postings.get(t);
+            if (ids == null) continue;
+            for (Long id : ids) common.merge(id, 1, Integer::sum);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<Long, Integer> c : common.entrySet()) {
+            Entry e = byId.get(c.getKey());
+            if (e == null || (category != null && e.category() != category)) continue;
+
+            double coverage = (double) c.getValue() / qTrigrams.size();
+            double bonus = bonus(e, query);
+            if (coverage >= minScore || bonus > 0) {
+                hits.add(new Hit(e, coverage + bonus));
+            }
+        }
+        return hits;
+    }
+
+    // 1–2 znaky netvori plny trigram -> projdeme vsechny nazvy (podretezec jako puvodni LIKE)
+    private List<Hit> scan(String query, Product.Category category) {
+        List<Hit> hits = new ArrayList<>();
+        for (Entry e : byId.values()) {
+            if (category != null && e.category() != category) continue;
+            double bonus = bonus(e, query);
+            if (bonus > 0) hits.add(new Hit(e, bonus));
+        }
+        return hits;
+    }
+
+    private static double bonus(Entry e, String query) {
+        if (e.sku().equals(query)) return 3.0;
+
+        double bonus = 0;
+        int at = e.name().indexOf(query);
+        if (at >= 0) {
+            bonus += 1.0;
+            if (at == 0) bonus += 0.5;
+            else if (e.name().charAt(at - 1) == ' ') bonus += 0.25;   // zacatek slova
+        } else if (e.sku().startsWith(query)) {
+            bonus += 1.0;
+        }
+        return bonus;
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Entry entryOf(Product p) {
+        String name = normalize(p.getName());
+        String sku = normalize(p.getSku());
+
+        Set<String> trigrams = trigrams(name, false);
+        trigrams.addAll(trigrams(sku, false));
+        return new Entry(p.getId(), p.getCategory(), name, sku, trigrams);
+    }
+
+    private void add(Entry e) {
+        byId.put(e.id(), e);
+        for (String t : e.trigrams()) {
+            postings.computeIfAbsent(t, k -> ConcurrentHashMap.newKeySet()).add(e.id());
+        }
+    }
+
+    private void drop(Entry e) {
+        byId.remove(e.id());
+        for (String t : e.trigrams()) {
+            Set<Long> ids = postings.get(t);
+            if (ids == null) continue;
+            ids.remove(e.id());
+            if (ids.isEmpty()) postings.remove(t);
+        }
+    }
+
+    // slova doplnena "  " zleva a " " zprava; u dotazu posledni slovo bez koncove mezery (prefix)
+    static Set<String> trigrams(String text, boolean openEnd) {
+        Set<String> res = new LinkedHashSet<>();
+        String[] words = text.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            if (words[w].isEmpty()) continue;
+            boolean last = w == words.length - 1;
+            String padded = "  " + words[w] + (openEnd && last ? "" : " ");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                res.add(padded.substring(i, i + 3));
+            }
+        }
+        return res;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        s = DIACRITICS.matcher(s).replaceAll("").toLowerCase(Locale.ROOT);
+        return NON_WORD.matcher(s).replaceAll(" ").trim();
+    }
+}
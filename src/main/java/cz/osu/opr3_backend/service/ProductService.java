@@ -1,15 +1,32 @@
 package cz.osu.opr3_backend.service;
 
 import cz.osu.opr3_backend.model.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.model.repo.SpecFilter;
 import cz.osu.opr3_backend.security.SecurityUtils;
 import cz.osu.opr3_backend.web.dto.ProductCreateRequest;
+import cz.osu.opr3_backend.web.dto.ProductPageResponse;
+import cz.osu.opr3_backend.web.dto.ProductResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +35,37 @@ public class ProductService {
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
     private final ProductRepository productRepository;
+    private final ProductSpecCache productSpecCache;
+    private final ProductAttributeIndex productAttributeIndex;
+    private final ObjectMapper objectMapper;
+    private final StockService stockService;
+    private final FlashSaleLedger flashSaleLedger;
+    private final ProductCache productCache;
+    private final InvalidationBus invalidationBus;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${app.products.search.default-limit:50}")
+    private int defaultSearchLimit;
+
+    @Value("${app.products.search.max-limit:500}")
+    private int maxSearchLimit;
+
+    @Value("${app.products.search.max-candidates:5000}")
+    private int maxSearchCandidates;
+
+    @Value("${app.products.catalog.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.products.catalog.max-page-size:200}")
+    private int maxPageSize;
+
+    // povolene razeni katalogu: parametr -> atribut entity
+    private static final Map<String, String> CATALOG_SORT = Map.of(
+            "price", "price",
+            "name", "name",
+            "stock", "stock"
+    );
 
     public Product create(ProductCreateRequest req) {
         String actor = SecurityUtils.usernameOrAnonymous();
@@ -28,10 +76,13 @@ public class ProductService {
                 .category(req.category())
                 .price(req.price())
                 .stock(req.stock())
-                .spec(req.spec())
+                .spec(normalizeSpec(req.spec()))
                 .build();
 
         Product saved = productRepository.save(p);
+        reindexAfterCommit(saved);
+        productCache.invalidate(saved.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, saved.getId());
 
         log.info("AUDIT PRODUCT_CREATE actor={} productId={} sku={} category={} price={} stock={}",
                 actor, saved.getId(), saved.getSku(), saved.getCategory(), saved.getPrice(), saved.getStock());
@@ -39,11 +90,19 @@ public class ProductService {
         return saved;
     }
 
+    @Transactional(readOnly = true)
     public Product get(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product " + id + " not found"));
     }
 
+    // detail produktu z cache; sklad muze byt starsi (viz ProductResponse.stockAsOf)
+    public ProductResponse getCached(Long id) {
+        ProductCache.Cached cached = productCache.get(id);
+        return ProductResponse.cached(cached.product(), cached.loadedAt());
+    }
+
+    @Transactional
     public Product update(Long id, ProductCreateRequest req) {
         String actor = SecurityUtils.usernameOrAnonymous();
 
@@ -56,10 +115,16 @@ public class ProductService {
         existing.setName(req.name());
         existing.setCategory(req.category());
         existing.setPrice(req.price());
-        existing.setStock(req.stock());
-        existing.setSpec(req.spec());
+        flashSaleLedger.flush(existing.getId());
+        stockService.setTotal(existing, req.stock());
+        flashSaleLedger.reset(existing.getId());
+        existing.setSpec(normalizeSpec(req.spec()));
 
         Product saved = productRepository.save(existing);
+        productSpecCache.invalidate(saved.getId());
+        reindexAfterCommit(saved);
+        productCache.invalidate(saved.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, saved.getId());
 
         log.info("AUDIT PRODUCT_UPDATE actor={} productId={} oldSku={} newSku={} oldStock={} newStock={}",
                 actor, saved.getId(), oldSku, saved.getSku(), oldStock, saved.getStock());
@@ -67,24 +132,38 @@ public class ProductService {
         return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
         String actor = SecurityUtils.usernameOrAnonymous();
 
         Product existing = get(id);
+        flashSaleLedger.disable(existing.getId());
+        stockService.dropShards(existing.getId());
         productRepository.delete(existing);
+        productSpecCache.invalidate(existing.getId());
+        unindexAfterCommit(existing.getId());
+        productCache.invalidate(existing.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, existing.getId());
 
         log.warn("AUDIT PRODUCT_DELETE actor={} productId={} sku={} name={}",
                 actor, existing.getId(), existing.getSku(), existing.getName());
     }
 
+    @Transactional
     public Product updateStock(Long id, Integer stock) {
         String actor = SecurityUtils.usernameOrAnonymous();
 
         Product p = get(id);
-        Integer old = p.getStock();
+        Integer old = stockService.available(p);
 
-        p.setStock(stock);
+        // u rozdeleneho skladu se nova hodnota rozlozi do slotu; flash-sale ledger nejdriv dopise
+        // nahromadene odpisy, podily instanci propadnou a doplni se uz z nove hodnoty
+        flashSaleLedger.flush(p.getId());
+        stockService.setTotal(p, stock);
+        flashSaleLedger.reset(p.getId());
         Product saved = productRepository.save(p);
+        productCache.invalidate(saved.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, saved.getId());
 
         log.info("AUDIT PRODUCT_STOCK_UPDATE actor={} productId={} sku={} oldStock={} newStock={}",
                 actor, saved.getId(), saved.getSku(), old, stock);
@@ -92,20 +171,152 @@ public class ProductService {
         return saved;
     }
 
-    public List<Product> findAll(Product.Category category, String q) {
-        if (category != null && q != null && !q.isBlank()) {
-            return productRepository.findByCategoryAndNameContainingIgnoreCase(category, q);
+    public Product updateStockShards(Long id, Integer shards) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+
+        Product saved = stockService.reshard(id, shards);
+        productCache.invalidate(saved.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, saved.getId());
+
+        log.info("AUDIT PRODUCT_STOCK_SHARDS actor={} productId={} sku={} shards={} stock={}",
+                actor, saved.getId(), saved.getSku(), saved.getStockShards(), saved.getStock());
+
+        return saved;
+    }
+
+    public Product updateFlashSale(Long id, boolean enabled) {
+        String actor = SecurityUtils.usernameOrAnonymous();
+
+        Product p = get(id);
+        p.setFlashSale(enabled ? Boolean.TRUE : null);
+        Product saved = productRepository.save(p);
+        productCache.invalidate(saved.getId());
+        invalidationBus.publish(InvalidationBus.EntityType.PRODUCT, saved.getId());
+
+        if (enabled) {
+            flashSaleLedger.enable(saved);
+        } else {
+            flashSaleLedger.disable(saved.getId());
         }
-        if (category != null) {
-            return productRepository.findByCategory(category);
+
+        log.info("AUDIT PRODUCT_FLASH_SALE actor={} productId={} sku={} enabled={} stock={}",
+                actor, saved.getId(), saved.getSku(), enabled, saved.getStock());
+
+        return saved;
+    }
+
+    // s q fulltext z ProductSearchIndex (poradi podle relevance), jinak cely katalog / kategorie
+    @Transactional(readOnly = true)
+    public List<Product> findAll(Product.Category category, String q, List<SpecFilter> specFilters, Integer limit) {
+        boolean bySpec = specFilters != null && !specFilters.isEmpty();
+
+        if (q == null || q.isBlank()) {
+            if (bySpec) return productRepository.findBySpec(category, null, specFilters);
+            return category != null ? productRepository.findByCategory(category) : productRepository.findAll();
         }
-        if (q != null && !q.isBlank()) {
-            return productRepository.findByNameContainingIgnoreCase(q);
+
+        if (limit != null && limit <= 0) throw new IllegalArgumentException("limit must be > 0");
+        int max = Math.min(limit != null ? limit : defaultSearchLimit, maxSearchLimit);
+
+        // se spec filtry se omezuje az po filtraci v DB, jinak by filtr vyradil cast nejlepsich shod
+        List<Long> ranked = productSearchIndex.search(q, category, bySpec ? maxSearchCandidates : max);
+        if (ranked.isEmpty()) return List.of();
+
+        List<Product> found = bySpec
+                ? productRepository.findBySpec(category, ranked, specFilters)
+                : productRepository.findAllById(ranked);
+        Map<Long, Product> byId = found.stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return ranked.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .limit(max)
+                .toList();
+    }
+
+    /**
+     * Stránka katalogu. {@code sort} je {@code price|name|stock[,asc|desc]} (výchozí {@code name}),
+     * vždy doplněné o {@code id}, aby stránkování bylo stabilní.
+     */
+    @Transactional(readOnly = true)
+    public ProductPageResponse catalog(Product.Category category, Integer page, Integer size, String sort) {
+        int pageNo = page != null ? page : 0;
+        int pageSize = Math.min(size != null ? size : defaultPageSize, maxPageSize);
+        if (pageNo < 0) throw new IllegalArgumentException("page must be >= 0");
+        if (pageSize <= 0) throw new IllegalArgumentException("size must be > 0");
+
+        Pageable pageable = PageRequest.of(pageNo, pageSize, catalogSort(sort));
+        Page<Product> result = category != null
+                ? productRepository.findByCategory(category, pageable)
+                : productRepository.findAll(pageable);
+
+        return ProductPageResponse.of(result);
+    }
+
+    // ETag katalogu ze sdilene verze (viz CatalogVersion), produkty se nectou
+    public String catalogETag() {
+        return catalogVersion.etag();
+    }
+
+    private static Sort catalogSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("name", "id");
         }
-        return productRepository.findAll();
+
+        String[] parts = sort.split(",");
+        String property = CATALOG_SORT.get(parts[0].trim().toLowerCase(Locale.ROOT));
+        if (property == null || parts.length > 2) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort + " (allowed: price, name, stock [,asc|desc])");
+        }
+
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported sort direction: " + parts[1]));
+        }
+        return Sort.by(direction, property).and(Sort.by(direction, "id"));
     }
 
+    @Transactional(readOnly = true)
     public List<Product> list() {
         return productRepository.findAll();
     }
+
+    // spec je v DB jsonb -> musi to byt validni JSON, prazdny text ulozime jako null
+    private String normalizeSpec(String spec) {
+        if (spec == null || spec.isBlank()) return null;
+        if (!ProductSpec.parse(spec, objectMapper).valid()) {
+            throw new IllegalArgumentException("Product spec must be valid JSON");
+        }
+        return spec;
+    }
+
+    // indexy v pameti se meni az po commitu – po rollbacku (optimistic lock, constraint) v nich nic nezustane
+    private void reindexAfterCommit(Product product) {
+        afterCommit(() -> {
+            productAttributeIndex.upsert(product);
+            productSearchIndex.upsert(product);
+        });
+    }
+
+    private void unindexAfterCommit(Long productId) {
+        afterCommit(() -> {
+            productAttributeIndex.remove(productId);
+            productSearchIndex.remove(productId);
+        });
+    }
+
+    // mimo transakci (create – save uz commitnul) se akce provede hned
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,65 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Naparsovaný pohled na {@code Product.spec}. Typované hodnoty (socket, tdp, wattage)
+ * se čtou jednou při parsování, ostatní atributy zůstávají dostupné přes {@link #text} / {@link #integer}.
+ */
+public record ProductSpec(
+        boolean valid,
+        String socket,
+        Integer tdp,
+        Integer wattage,
+        Map<String, JsonNode> attributes
+) {
+
+    public static final ProductSpec EMPTY = new ProductSpec(true, null, null, null, Map.of());
+    public static final ProductSpec INVALID = new ProductSpec(false, null, null, null, Map.of());
+
+    public static ProductSpec parse(String spec, ObjectMapper objectMapper) {
+        if (spec == null || spec.isBlank()) return EMPTY;
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(spec);
+        } catch (Exception e) {
+            return INVALID;
+        }
+        if (root == null || !root.isObject()) return EMPTY;
+
+        Map<String, JsonNode> attributes = new LinkedHashMap<>();
+        root.fields().forEachRemaining(f -> attributes.put(f.getKey(), f.getValue()));
+
+        return new ProductSpec(
+                true,
+                textOf(attributes.get("socket")),
+                intOf(attributes.get("tdp")),
+                intOf(attributes.get("wattage")),
+                Collections.unmodifiableMap(attributes)
+        );
+    }
+
+    public String text(String field) {
+        return textOf(attributes.get(field));
+    }
+
+    public Integer integer(String field) {
+        return intOf(attributes.get(field));
+    }
+
+    private static String textOf(JsonNode v) {
+        if (v == null || v.isNull()) return null;
+        return v.asText();
+    }
+
+    private static Integer intOf(JsonNode v) {
+        if (v == null || v.isNull()) return null;
+        return v.asInt();
+    }
+}
@@ -0,0 +1,47 @@
+package cz.osu.opr3_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache naparsovaných specifikací podle ID produktu. Záznam platí jen pro stejnou
+ * {@code @Version} produktu, při změně verze se spec naparsuje znovu.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSpecCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(Long version, ProductSpec spec) {}
+
+    public ProductSpec get(Product product) {
+        if (product.getId() == null) {
+            return ProductSpec.parse(product.getSpec(), objectMapper);
+        }
+
+        Entry cached = entries.get(product.getId());
+        if (cached != null && Objects.equals(cached.version(), product.getVersion())) {
+            return cached.spec();
+        }
+
+        ProductSpec spec = ProductSpec.parse(product.getSpec(), objectMapper);
+        entries.put(product.getId(), new Entry(product.getVersion(), spec));
+        return spec;
+    }
+
+    public void invalidate(Long productId) {
+        if (productId != null) entries.remove(productId);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
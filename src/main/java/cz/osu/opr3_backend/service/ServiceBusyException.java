@@ -0,0 +1,5 @@
+package cz.osu.opr3_backend.service;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) { super(message); }
+}
@@ -0,0 +1,206 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.entity.ProductStockShard;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.model.repo.ProductStockShardRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Odpis skladu jedním podmíněným UPDATE na řádek ({@code stock = stock - ? where stock >= ?}).
+ * Souběžné objednávky stejného produktu se tak jen krátce serializují na zámku řádku
+ * místo konfliktu přes {@code @Version}.
+ * <p>
+ * "Horké" produkty mohou mít sklad rozdělený do N slotů ({@link ProductStockShard}); odpis pak
+ * zamyká jen jeden náhodný slot a {@code product.stock} je jen periodicky obnovovaný součet.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository productStockShardRepository;
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * Odepíše všechny řádky, nebo vyhodí {@link OutOfStockException} – rollback pak vrátí
+     * i už odepsané řádky, proto musí běžet uvnitř transakce volajícího.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void decrement(Map<Long, Integer> qtyByProduct) {
+        Map<Long, Integer> shardsByProduct = productRepository.findShardCountsByIdIn(qtyByProduct.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductRepository.ShardCount::getId, ProductRepository.ShardCount::getStockShards));
+
+        // vzdy stejne poradi (podle id) -> dve objednavky se stejnymi produkty se nezablokuji navzajem
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(qtyByProduct).entrySet()) {
+            Long productId = line.getKey();
+            int qty = line.getValue();
+
+            Integer shards = shardsByProduct.get(productId);
+            if (shards != null && decrementSharded(productId, shards, qty)) continue;
+            if (productRepository.decrementStock(productId, qty) == 1) continue;
+
+            // mezitim mohl admin sklad produktu rozdelit
+            Integer reshardedTo = productRepository.findShardCountsByIdIn(List.of(productId)).stream()
+                    .map(ProductRepository.ShardCount::getStockShards)
+                    .findFirst()
+                    .orElse(null);
+            if (reshardedTo != null && decrementSharded(productId, reshardedTo, qty)) continue;
+
+            Integer available = productRepository.findStockById(productId);
+            throw new OutOfStockException(productId, qty, available == null ? 0 : available);
+        }
+    }
+
+    /**
+     * Vrátí kusy do skladu (nevyužitý podíl flash-sale). U rozděleného skladu do náhodného slotu.
+     * Smazaný produkt se přeskočí.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void increment(Long productId, int qty) {
+        if (productRepository.incrementStock(productId, qty) == 1) return;
+
+        Integer shards = productRepository.findShardCountsByIdIn(List.of(productId)).stream()
+                .map(ProductRepository.ShardCount::getStockShards)
+                .findFirst()
+                .orElse(null);
+        if (shards != null) {
+            productStockShardRepository.incrementSlot(productId, ThreadLocalRandom.current().nextInt(shards), qty);
+        }
+    }
+
+    // aktualni dostupnost (u rozdeleneho skladu soucet slotu, ne cache v product.stock)
+    @Transactional(readOnly = true)
+    public int available(Product p) {
+        if (isSharded(p)) {
+            return productStockShardRepository.sumStockByProductId(p.getId());
+        }
+        return p.getStock() == null ? 0 : p.getStock();
+    }
+
+    /**
+     * Nastaví celkový sklad – u rozděleného skladu ho rovnoměrně rozloží do slotů.
+     * Produkt musí být spravovaná entita, {@code product.stock} se uloží s ní.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void setTotal(Product p, int stock) {
+        if (isSharded(p)) {
+            List<ProductStockShard> shards = productStockShardRepository.lockAllByProductId(p.getId());
+            distribute(shards, stock);
+        }
+        p.setStock(stock);
+    }
+
+    /**
+     * Zapne/změní/vypne rozdělení skladu. Zamkne řádek produktu, aby se mezi sečtením
+     * a přerozdělením neztratil souběžný odpis.
+     */
+    @Transactional
+    public Product reshard(Long productId, int shards) {
+        Product p = productRepository.findForUpdateById(productId)
+                .orElseThrow(() -> new NotFoundException("Product " + productId + " not found"));
+
+        // sloty zamknout pred sectenim – odpisy ze slotu zamek produktu nepotrebuji
+        int total = isSharded(p)
+                ? productStockShardRepository.lockAllByProductId(productId).stream().mapToInt(ProductStockShard::getStock).sum()
+                : available(p);
+        productStockShardRepository.deleteByProductId(productId);
+
+        // deleteByProductId vycistil persistence context -> znovu nacist
+        p = productRepository.findById(productId).orElseThrow();
+
+        if (shards <= 1) {
+            p.setStockShards(null);
+        } else {
+            List<ProductStockShard> created = new ArrayList<>(shards);
+            for (int slot = 0; slot < shards; slot++) {
+                created.add(ProductStockShard.builder().product(p).slot(slot).stock(0).build());
+            }
+            distribute(created, total);
+            productStockShardRepository.saveAll(created);
+            p.setStockShards(shards);
+        }
+        p.setStock(total);
+
+        return productRepository.save(p);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void dropShards(Long productId) {
+        productStockShardRepository.deleteByProductId(productId);
+    }
+
+    // prubezna cache souctu slotu pro katalog
+    @Scheduled(fixedDelayString = "${app.stock.shards.refresh-ms:1000}")
+    @Transactional
+    public void refreshShardedTotals() {
+        int updated = productRepository.refreshShardedStock();
+        if (updated > 0) {
+            catalogVersion.bump();
+            log.debug("Refreshed cached stock of {} sharded products", updated);
+        }
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private static boolean isSharded(Product p) {
+        return p.getStockShards() != null && p.getStockShards() > 0;
+    }
+
+    // false = produkt uz sloty nema (sklad mezitim slouceny zpet)
+    private boolean decrementSharded(Long productId, int shards, int qty) {
+        // nahodny startovni slot -> soubezne checkouty se rozlozi po ruznych radcich
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            if (productStockShardRepository.decrementSlot(productId, (start + i) % shards, qty) == 1) {
+                return true;
+            }
+        }
+
+        // zadny slot sam nestaci -> zamkneme vsechny (v poradi slotu) a odebereme napric nimi
+        List<ProductStockShard> locked = productStockShardRepository.lockAllByProductId(productId);
+        if (locked.isEmpty()) return false;
+
+        int available = locked.stream().mapToInt(ProductStockShard::getStock).sum();
+        if (available < qty) {
+            throw new OutOfStockException(productId, qty, available);
+        }
+
+        int remaining = qty;
+        for (ProductStockShard s : locked) {
+            int take = Math.min(remaining, s.getStock());
+            s.setStock(s.getStock() - take);
+            remaining -= take;
+            if (remaining == 0) break;
+        }
+        return true;
+    }
+
+    private static void distribute(List<ProductStockShard> shards, int total) {
+        int n = shards.size();
+        if (n == 0) return;
+        int base = total / n;
+        int rest = total % n;
+        for (int i = 0; i < n; i++) {
+            shards.get(i).setStock(base + (i < rest ? 1 : 0));
+        }
+    }
+}
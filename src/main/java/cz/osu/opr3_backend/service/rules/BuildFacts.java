@@ -0,0 +1,64 @@
+package cz.osu.opr3_backend.service.rules;
+
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.service.ProductSpec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fakta o buildu – u uloženého buildu z jeho agregátů, jinak posbíraná jedním průchodem přes položky.
+ * Pravidla už čtou jen tato pole, počty jsou v primitivních polích indexovaných {@code Product.Category.ordinal()}.
+ */
+final class BuildFacts {
+
+    record Line(BuildItem item, Product product, ProductSpec spec, int quantity) {}
+
+    private static final int CATEGORIES = Product.Category.values().length;
+
+    final Build build;
+    final int[] qty = new int[CATEGORIES];
+    final List<List<Line>> lines = new ArrayList<>(Collections.nCopies(CATEGORIES, null));
+    final List<String> specWarnings = new ArrayList<>();
+    final List<String> stockShortfalls = new ArrayList<>();
+    int totalQuantity;
+    int distinctItems;
+
+    // agregaty z Build (snapshot polozek); u docasnych buildu bez agregatu se cte ze spec polozek
+    boolean aggregated;
+    String cpuSocket;
+    String mbSocket;
+    Integer supplyW;
+    int loadW;
+
+    BuildFacts(Build build) {
+        this.build = build;
+    }
+
+    int qty(Product.Category category) {
+        return qty[category.ordinal()];
+    }
+
+    List<Line> lines(Product.Category category) {
+        List<Line> l = lines.get(category.ordinal());
+        return l != null ? l : List.of();
+    }
+
+    // socket CPU/MB z agregatu, ostatni atributy ze spec prvni polozky kategorie
+    String text(Product.Category category, String attribute) {
+        if (aggregated && "socket".equals(attribute)) {
+            if (category == Product.Category.CPU) return cpuSocket;
+            if (category == Product.Category.MB) return mbSocket;
+        }
+        Line l = first(category);
+        return (l != null) ? l.spec().text(attribute) : null;
+    }
+
+    Line first(Product.Category category) {
+        List<Line> l = lines.get(category.ordinal());
+        return (l == null || l.isEmpty()) ? null : l.get(0);
+    }
+}
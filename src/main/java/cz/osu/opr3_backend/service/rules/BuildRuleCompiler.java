@@ -0,0 +1,176 @@
+package cz.osu.opr3_backend.service.rules;
+
+import cz.osu.opr3_backend.model.entity.Product;
+
+import java.util.List;
+import java.util.Locale;
+
+// Převod definic z konfigurace na spustitelná pravidla (jednou při startu)
+final class BuildRuleCompiler {
+
+    private BuildRuleCompiler() {}
+
+    static CompiledRule compile(BuildRuleDefinition d) {
+        if (d.id() == null || d.id().isBlank()) throw invalid(d, "id is required");
+        if (d.type() == null) throw invalid(d, "type is required");
+        if (d.scope() == null) throw invalid(d, "scope is required");
+        if (d.severity() == null) throw invalid(d, "severity is required");
+
+        return switch (d.type()) {
+            case REQUIRED -> required(d);
+            case MAX_QUANTITY -> maxQuantity(d);
+            case ATTRIBUTE_MATCH -> attributeMatch(d);
+            case POWER_BUDGET -> powerBudget(d);
+            case STOCK -> stock(d);
+        };
+    }
+
+    private static CompiledRule required(BuildRuleDefinition d) {
+        int idx = requireCategory(d, d.category()).ordinal();
+        String message = requireMessage(d);
+
+        return new CompiledRule(d) {
+            @Override
+            void apply(BuildFacts facts, RuleResult result) {
+                if (facts.qty[idx] == 0) report(result, message);
+            }
+        };
+    }
+
+    private static CompiledRule maxQuantity(BuildRuleDefinition d) {
+        int idx = requireCategory(d, d.category()).ordinal();
+        if (d.max() == null || d.max() < 0) throw invalid(d, "max must be >= 0");
+        int max = d.max();
+        String message = requireMessage(d).replace("{max}", String.valueOf(max));
+
+        return new CompiledRule(d) {
+            @Override
+            void apply(BuildFacts facts, RuleResult result) {
+                if (facts.qty[idx] > max) report(result, message);
+            }
+        };
+    }
+
+    private static CompiledRule attributeMatch(BuildRuleDefinition d) {
+        Product.Category left = requireCategory(d, d.category());
+        Product.Category right = requireCategory(d, d.otherCategory());
+        String attribute = requireAttribute(d, d.attribute());
+
+        return new CompiledRule(d) {
+            @Override
+            void apply(BuildFacts facts, RuleResult result) {
+                String lv = facts.text(left, attribute);
+                String rv = facts.text(right, attribute);
+
+                if (lv != null && rv != null && !lv.equalsIgnoreCase(rv)) {
+                    report(result, left + " " + attribute + " " + lv + " does not match " + right + " " + attribute + " " + rv);
+                } else if (lv == null && facts.qty(left) > 0) {
+                    result.warnings.add(left + " " + attribute + " is missing in spec");
+                } else if (rv == null && facts.qty(right) > 0) {
+                    result.warnings.add(right + " " + attribute + " is missing in spec");
+                }
+            }
+        };
+    }
+
+    private static CompiledRule powerBudget(BuildRuleDefinition d) {
+        if (d.loadCategories() == null || d.loadCategories().isEmpty()) throw invalid(d, "loadCategories are required");
+        List<Product.Category> loads = List.copyOf(d.loadCategories());
+        String loadAttr = requireAttribute(d, d.loadAttribute());
+        // chybejici atribut zatezi hlasit jen u techto kategorii (puvodne jen GPU)
+        List<Product.Category> warnMissing = d.warnMissingLoad() != null ? List.copyOf(d.warnMissingLoad()) : loads;
+        Product.Category supply = requireCategory(d, d.supplyCategory());
+        String supplyAttr = requireAttribute(d, d.supplyAttribute());
+        int reserve = d.reserveW() != null ? d.reserveW() : 0;
+        double factor = d.headroomFactor() != null ? d.headroomFactor() : 1.0;
+
+        String loadLabel = loadAttr.toUpperCase(Locale.ROOT);
+        String loadNames = String.join("/", loads.stream().map(Enum::name).toList());
+
+        return new CompiledRule(d) {
+            @Override
+            void apply(BuildFacts facts, RuleResult result) {
+                // ulozeny build: vykon zdroje a soucet zateze z agregatu (snapshot pri pridani polozky)
+                Integer supplyW = null;
+                if (facts.qty(supply) > 0) {
+                    supplyW = facts.aggregated ? facts.supplyW : facts.first(supply).spec().integer(supplyAttr);
+                    if (supplyW == null) result.warnings.add(supply + " " + supplyAttr + " is missing in spec");
+                }
+                result.supplyW = supplyW;
+
+                boolean known = false;
+                int load = 0;
+                for (Product.Category c : loads) {
+                    for (BuildFacts.Line line : facts.lines(c)) {
+                        Integer v = facts.aggregated ? line.item().getTdpW() : line.spec().integer(loadAttr);
+                        if (v != null) {
+                            load += v * line.quantity();
+                            known = true;
+                        } else if (warnMissing.contains(c)) {
+                            result.warnings.add(c + " " + loadLabel + " is missing in spec (productId " + line.product().getId() + ")");
+                        }
+                    }
+                }
+                if (facts.aggregated) load = facts.loadW;
+
+                if (!known) {
+                    result.warnings.add("Cannot estimate load (missing " + loadNames + " " + loadLabel + ")");
+                    return;
+                }
+
+                int estimated = load + reserve;
+                result.estimatedLoadW = estimated;
+
+                if (supplyW != null) {
+                    if (supplyW < estimated) {
+                        report(result, supply + " " + supplyAttr + " " + supplyW + "W is below estimated load " + estimated + "W");
+                    } else if (supplyW < (int) Math.ceil(estimated * factor)) {
+                        result.warnings.add(supply + " " + supplyAttr + " " + supplyW + "W has low headroom for estimated load " + estimated + "W");
+                    }
+                }
+            }
+        };
+    }
+
+    // nedostatek skladu jde ve validaci az za chybami kompatibility (jako puvodne)
+    private static CompiledRule stock(BuildRuleDefinition d) {
+        return new CompiledRule(d) {
+            @Override
+            void apply(BuildFacts facts, RuleResult result) {
+                if (d.scope() == BuildRuleDefinition.Scope.READINESS && d.severity() == BuildRuleDefinition.Severity.ERROR) {
+                    result.stockReasons.addAll(facts.stockShortfalls);
+                    return;
+                }
+                for (String shortfall : facts.stockShortfalls) report(result, shortfall);
+            }
+        };
+    }
+
+    // kategorie, u kterých pravidla čtou spec (kvůli varování o nevalidním JSON)
+    static boolean readsSpec(BuildRuleDefinition d, Product.Category c) {
+        return switch (d.type()) {
+            case ATTRIBUTE_MATCH -> c == d.category() || c == d.otherCategory();
+            case POWER_BUDGET -> c == d.supplyCategory() || d.loadCategories().contains(c);
+            default -> false;
+        };
+    }
+
+    private static Product.Category requireCategory(BuildRuleDefinition d, Product.Category c) {
+        if (c == null) throw invalid(d, "category is required");
+        return c;
+    }
+
+    private static String requireAttribute(BuildRuleDefinition d, String attribute) {
+        if (attribute == null || attribute.isBlank()) throw invalid(d, "attribute is required");
+        return attribute;
+    }
+
+    private static String requireMessage(BuildRuleDefinition d) {
+        if (d.message() == null || d.message().isBlank()) throw invalid(d, "message is required");
+        return d.message();
+    }
+
+    private static IllegalStateException invalid(BuildRuleDefinition d, String reason) {
+        return new IllegalStateException("Invalid build rule " + d.id() + ": " + reason);
+    }
+}
@@ -0,0 +1,47 @@
+package cz.osu.opr3_backend.service.rules;
+
+import cz.osu.opr3_backend.model.entity.Product;
+
+import java.util.List;
+
+/**
+ * Definice jednoho pravidla tak, jak je uložená v konfiguraci ({@code app.build.rules-location}).
+ * Které položky se použijí, záleží na {@link Type}.
+ */
+public record BuildRuleDefinition(
+        String id,
+        Type type,
+        Scope scope,
+        Severity severity,
+        Product.Category category,
+        Product.Category otherCategory,
+        String attribute,
+        Integer max,
+        List<Product.Category> loadCategories,
+        String loadAttribute,
+        List<Product.Category> warnMissingLoad,
+        Product.Category supplyCategory,
+        String supplyAttribute,
+        Integer reserveW,
+        Double headroomFactor,
+        String message
+) {
+
+    public enum Type {
+        // kategorie musí být v buildu alespoň jednou
+        REQUIRED,
+        // součet kusů v kategorii nesmí překročit max
+        MAX_QUANTITY,
+        // atribut ve spec musí být stejný u obou kategorií (např. socket CPU x MB)
+        ATTRIBUTE_MATCH,
+        // odhad spotřeby vs. výkon zdroje
+        POWER_BUDGET,
+        // požadované množství vs. sklad
+        STOCK
+    }
+
+    // COMPATIBILITY -> errors/warnings v reportu kompatibility, READINESS -> reasons ve validaci
+    public enum Scope { COMPATIBILITY, READINESS }
+
+    public enum Severity { ERROR, WARNING }
+}
@@ -0,0 +1,244 @@
+package cz.osu.opr3_backend.service.rules;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.service.BuildAggregator;
+import cz.osu.opr3_backend.service.BuildEvaluation;
+import cz.osu.opr3_backend.service.ProductSpec;
+import cz.osu.opr3_backend.service.ProductSpecCache;
+import cz.osu.opr3_backend.web.dto.build.BuildRuleStatsResponse;
+import cz.osu.opr3_backend.web.dto.build.BuildValidationResponse;
+import cz.osu.opr3_backend.web.dto.build.CompatibilityReportResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pravidla kompatibility a připravenosti buildu. Definice se načtou z konfigurace a zkompilují
+ * jednou při startu. Počty kusů, sockety a odběr se u uloženého buildu čtou z jeho agregátů
+ * ({@link BuildAggregator}), položky se procházejí jen kvůli skladu a varováním ke spec.
+ */
+@Component
+public class BuildRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BuildRuleEngine.class);
+
+    private static final Product.Category[] CATEGORIES = Product.Category.values();
+
+    private final ProductSpecCache productSpecCache;
+
+    private final List<CompiledRule> rules;
+    private final List<CompiledRule> limitRules;
+    private final boolean[] specCategories = new boolean[CATEGORIES.length];
+    private final boolean checksStock;
+
+    public BuildRuleEngine(
+            ProductSpecCache productSpecCache,
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            @Value("${app.build.rules-location:classpath:build-rules.json}") String rulesLocation
+    ) {
+        this.productSpecCache = productSpecCache;
+
+        List<BuildRuleDefinition> definitions = load(objectMapper, resourceLoader.getResource(rulesLocation));
+
+        List<CompiledRule> compiled = new ArrayList<>(definitions.size());
+        boolean stock = false;
+        for (BuildRuleDefinition d : definitions) {
+            compiled.add(BuildRuleCompiler.compile(d));
+            for (Product.Category c : CATEGORIES) {
+                if (BuildRuleCompiler.readsSpec(d, c)) specCategories[c.ordinal()] = true;
+            }
+            if (d.type() == BuildRuleDefinition.Type.STOCK) stock = true;
+        }
+
+        this.rules = List.copyOf(compiled);
+        this.limitRules = compiled.stream()
+                .filter(r -> r.definition.type() == BuildRuleDefinition.Type.MAX_QUANTITY)
+                .toList();
+        this.checksStock = stock;
+
+        log.info("Loaded {} build rules from {}", rules.size(), rulesLocation);
+    }
+
+    private static List<BuildRuleDefinition> load(ObjectMapper objectMapper, Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readValue(in, new TypeReference<List<BuildRuleDefinition>>() {});
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load build rules from " + resource, e);
+        }
+    }
+
+    // ----------------------------
+    // Evaluation
+    // ----------------------------
+
+    /**
+     * Build musí mít načtené položky i produkty.
+     */
+    public BuildEvaluation evaluate(Build build) {
+        BuildFacts facts = collect(build);
+        RuleResult result = new RuleResult();
+
+        for (CompiledRule rule : rules) {
+            rule.applyTimed(facts, result);
+        }
+
+        List<String> warnings = new ArrayList<>(facts.specWarnings.size() + result.warnings.size());
+        warnings.addAll(facts.specWarnings);
+        warnings.addAll(result.warnings);
+
+        CompatibilityReportResponse compatibility = new CompatibilityReportResponse(
+                build.getId(),
+                result.errors.isEmpty(),
+                result.errors,
+                warnings,
+                result.estimatedLoadW,
+                result.supplyW,
+                firstText(facts, Product.Category.CPU, "socket"),
+                firstText(facts, Product.Category.MB, "socket")
+        );
+
+        // poradi jako puvodne: chybejici dily, limity kusu, chyby kompatibility, sklad
+        List<String> reasons = new ArrayList<>(result.reasons.size() + result.errors.size() + result.stockReasons.size());
+        reasons.addAll(result.reasons);
+        reasons.addAll(result.errors);
+        reasons.addAll(result.stockReasons);
+
+        BuildValidationResponse validation = new BuildValidationResponse(build.getId(), reasons.isEmpty(), reasons);
+
+        return new BuildEvaluation(
+                build,
+                facts.qty,
+                facts.distinctItems,
+                facts.totalQuantity,
+                compatibility,
+                validation
+        );
+    }
+
+    // jen limity kusů (CPU/GPU/PSU/CASE max 1, RAM max 4) nad agregáty buildu – kontrola při přidání položky
+    public List<String> limitViolations(int[] categoryQty) {
+        BuildFacts facts = new BuildFacts(null);
+        System.arraycopy(categoryQty, 0, facts.qty, 0, Math.min(categoryQty.length, facts.qty.length));
+        RuleResult result = new RuleResult();
+
+        for (CompiledRule rule : limitRules) {
+            rule.applyTimed(facts, result);
+        }
+
+        List<String> reasons = new ArrayList<>(result.reasons);
+        reasons.addAll(result.errors);
+        return reasons;
+    }
+
+    // nejmensi nastaveny limit kusu pro kategorii (null = bez limitu)
+    public Integer maxQuantity(Product.Category category) {
+        Integer max = null;
+        for (CompiledRule r : limitRules) {
+            BuildRuleDefinition d = r.definition;
+            if (d.category() == category && (max == null || d.max() < max)) max = d.max();
+        }
+        return max;
+    }
+
+    // rezerva a atributy z pravidla POWER_BUDGET (null = pravidlo neni nastavene)
+    public BuildRuleDefinition powerBudget() {
+        for (CompiledRule r : rules) {
+            if (r.definition.type() == BuildRuleDefinition.Type.POWER_BUDGET) return r.definition;
+        }
+        return null;
+    }
+
+    public List<BuildRuleStatsResponse> stats() {
+        return rules.stream()
+                .map(r -> {
+                    long calls = r.calls.sum();
+                    long nanos = r.nanos.sum();
+                    return new BuildRuleStatsResponse(
+                            r.definition.id(),
+                            r.definition.type(),
+                            r.definition.scope(),
+                            calls,
+                            nanos,
+                            calls > 0 ? nanos / calls : 0
+                    );
+                })
+                .toList();
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private BuildFacts collect(Build build) {
+        BuildFacts facts = new BuildFacts(build);
+
+        // ulozeny build: kusy, sockety, zatez a zdroj z agregatu; polozky uz jen pro sklad a varovani
+        if (BuildAggregator.hasAggregates(build)) {
+            facts.aggregated = true;
+            System.arraycopy(build.getCategoryQty(), 0, facts.qty, 0, facts.qty.length);
+            for (int q : facts.qty) facts.totalQuantity += q;
+            facts.cpuSocket = build.getCpuSocket();
+            facts.mbSocket = build.getMbSocket();
+            facts.supplyW = build.getPsuWattageW();
+            facts.loadW = build.getTotalTdpW();
+        }
+
+        for (BuildItem bi : build.getItems()) {
+            Product p = bi.getProduct();
+            // kategorie ze snapshotu, aby polozky sedely s agregaty i po zmene produktu
+            Product.Category category = (facts.aggregated && bi.getCategory() != null) ? bi.getCategory() : p.getCategory();
+            int idx = category.ordinal();
+            int qty = bi.getQuantity();
+
+            if (!facts.aggregated) {
+                facts.qty[idx] += qty;
+                facts.totalQuantity += qty;
+            }
+            facts.distinctItems++;
+
+            ProductSpec spec = ProductSpec.EMPTY;
+            if (specCategories[idx]) {
+                spec = productSpecCache.get(p);
+                if (!spec.valid()) facts.specWarnings.add(category + " spec is not valid JSON");
+            }
+
+            List<BuildFacts.Line> lines = facts.lines.get(idx);
+            if (lines == null) {
+                lines = new ArrayList<>(2);
+                facts.lines.set(idx, lines);
+            }
+            lines.add(new BuildFacts.Line(bi, p, spec, qty));
+
+            if (checksStock) {
+                int available = (p.getStock() == null) ? 0 : p.getStock();
+                if (qty > available) {
+                    facts.stockShortfalls.add("Not enough stock for " + p.getSku()
+                            + " (requested " + qty + ", available " + available + ")");
+                }
+            }
+        }
+
+        return facts;
+    }
+
+    private String firstText(BuildFacts facts, Product.Category category, String attribute) {
+        if (facts.aggregated) return facts.text(category, attribute);
+        BuildFacts.Line line = facts.first(category);
+        if (line == null) return null;
+        ProductSpec spec = specCategories[category.ordinal()] ? line.spec() : productSpecCache.get(line.product());
+        return spec.text(attribute);
+    }
+}
@@ -0,0 +1,31 @@
+package cz.osu.opr3_backend.service.rules;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Zkompilované pravidlo + měření času, které v něm strávíme
+abstract class CompiledRule {
+
+    final BuildRuleDefinition definition;
+    final LongAdder calls = new LongAdder();
+    final LongAdder nanos = new LongAdder();
+
+    CompiledRule(BuildRuleDefinition definition) {
+        this.definition = definition;
+    }
+
+    abstract void apply(BuildFacts facts, RuleResult result);
+
+    final void applyTimed(BuildFacts facts, RuleResult result) {
+        long start = System.nanoTime();
+        try {
+            apply(facts, result);
+        } finally {
+            nanos.add(System.nanoTime() - start);
+            calls.increment();
+        }
+    }
+
+    final void report(RuleResult result, String message) {
+        result.add(definition.scope(), definition.severity(), message);
+    }
+}
@@ -0,0 +1,25 @@
+package cz.osu.opr3_backend.service.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Výstupy pravidel během jednoho vyhodnocení
+final class RuleResult {
+
+    final List<String> errors = new ArrayList<>();
+    final List<String> warnings = new ArrayList<>();
+    final List<String> reasons = new ArrayList<>();
+    final List<String> stockReasons = new ArrayList<>();
+
+    Integer estimatedLoadW;
+    Integer supplyW;
+
+    void add(BuildRuleDefinition.Scope scope, BuildRuleDefinition.Severity severity, String message) {
+        if (scope == BuildRuleDefinition.Scope.READINESS) {
+            if (severity == BuildRuleDefinition.Severity.ERROR) reasons.add(message);
+            return;
+        }
+        if (severity == BuildRuleDefinition.Severity.ERROR) errors.add(message);
+        else warnings.add(message);
+    }
+}
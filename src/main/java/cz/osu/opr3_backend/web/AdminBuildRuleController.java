@@ -0,0 +1,24 @@
+package cz.osu.opr3_backend.web;
+
+import cz.osu.opr3_backend.service.rules.BuildRuleEngine;
+import cz.osu.opr3_backend.web.dto.build.BuildRuleStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/build-rules")
+@RequiredArgsConstructor
+public class AdminBuildRuleController {
+
+    private final BuildRuleEngine buildRuleEngine;
+
+    // GET /api/admin/build-rules/stats – počet volání a čas strávený v jednotlivých pravidlech
+    @GetMapping("/stats")
+    public List<BuildRuleStatsResponse> stats() {
+        return buildRuleEngine.stats();
+    }
+}
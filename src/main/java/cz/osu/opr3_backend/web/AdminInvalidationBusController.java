@@ -0,0 +1,22 @@
+package cz.osu.opr3_backend.web;
+
+import cz.osu.opr3_backend.service.InvalidationBus;
+import cz.osu.opr3_backend.web.dto.InvalidationBusStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/invalidation-bus")
+@RequiredArgsConstructor
+public class AdminInvalidationBusController {
+
+    private final InvalidationBus invalidationBus;
+
+    // GET /api/admin/invalidation-bus/stats – stav LISTEN spojení, počty zpráv, resynců a zpoždění invalidace
+    @GetMapping("/stats")
+    public InvalidationBusStatsResponse stats() {
+        return invalidationBus.stats();
+    }
+}
@@ -1,30 +1,79 @@
 package cz.osu.opr3_backend.web;
 
 import cz.osu.opr3_backend.model.entity.Order;
+import cz.osu.opr3_backend.model.repo.OrderFilter;
+import cz.osu.opr3_backend.security.SecurityUtils;
+import cz.osu.opr3_backend.service.OrderExportService;
 import cz.osu.opr3_backend.service.OrderService;
+import cz.osu.opr3_backend.web.dto.order.OrderBulkStatusRequest;
+import cz.osu.opr3_backend.web.dto.order.OrderBulkStatusResponse;
+import cz.osu.opr3_backend.web.dto.order.OrderPageResponse;
 import cz.osu.opr3_backend.web.dto.order.OrderResponse;
 import cz.osu.opr3_backend.web.dto.order.OrderStatusUpdateRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/api/admin/orders")
 @RequiredArgsConstructor
 public class AdminOrderController {
 
+    private static final Logger log = LoggerFactory.getLogger(AdminOrderController.class);
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
+    // GET /api/admin/orders?status=PAID&from=&to=&cursor=&limit= – vsechny objednavky po strankach
     @GetMapping
-    public List<OrderResponse> listAll() {
-        return orderService.listAllAdmin().stream().map(OrderResponse::of).toList();
+    public OrderPageResponse listAll(@RequestParam(required = false) Order.Status status,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit) {
+        return orderService.listAllAdmin(status, from, to, cursor, limit);
+    }
+
+    // GET /api/admin/orders/export?format=ndjson|csv&status=&from=&to= – streamovany export (od nejstarsi)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Order.Status status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to
+    ) {
+        OrderExportService.Format fmt = OrderExportService.parseFormat(format);
+        OrderFilter filter = new OrderFilter(null, status, from, to);
+
+        log.info("AUDIT ORDER_EXPORT actor={} format={} status={} from={} to={}",
+                SecurityUtils.usernameOrAnonymous(), fmt, status, from, to);
+
+        StreamingResponseBody body = out -> orderExportService.export(filter, fmt, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OrderExportService.contentType(fmt)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + OrderExportService.fileName(fmt) + "\"")
+                .body(body);
     }
 
     @GetMapping("/{id}")
     public OrderResponse get(@PathVariable Long id) {
-        return OrderResponse.of(orderService.getAnyAdmin(id));
+        return orderService.getAnyAdmin(id);
+    }
+
+    // POST /api/admin/orders/status/bulk – hromadna zmena stavu (seznam id nebo filtr), vysledek po id
+    @PostMapping("/status/bulk")
+    public OrderBulkStatusResponse updateStatusBulk(@RequestBody @Valid OrderBulkStatusRequest req) {
+        return orderService.updateStatusBulkAdmin(req);
     }
 
     @PutMapping("/{id}/status")
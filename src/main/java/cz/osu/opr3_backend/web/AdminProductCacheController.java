@@ -0,0 +1,32 @@
+package cz.osu.opr3_backend.web;
+
+import cz.osu.opr3_backend.service.ProductCache;
+import cz.osu.opr3_backend.web.dto.ProductCacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/product-cache")
+@RequiredArgsConstructor
+public class AdminProductCacheController {
+
+    private final ProductCache productCache;
+
+    // GET /api/admin/product-cache/stats – velikost, hit/miss, načtení z DB, vyřazení
+    @GetMapping("/stats")
+    public ProductCacheStatsResponse stats() {
+        return productCache.stats();
+    }
+
+    // DELETE /api/admin/product-cache – vyprázdnění cache (např. po ruční změně v DB)
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clear() {
+        productCache.invalidateAll();
+    }
+}
@@ -0,0 +1,32 @@
+package cz.osu.opr3_backend.web;
+
+import cz.osu.opr3_backend.service.ProductImportService;
+import cz.osu.opr3_backend.web.dto.ProductImportResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/products")
+@RequiredArgsConstructor
+public class AdminProductController {
+
+    private final ProductImportService productImportService;
+
+    // POST /api/admin/products/import?format=csv|ndjson – hromadný upsert podle SKU, tělo se čte průběžně
+    // CSV: hlavička sku,name,category,price,stock[,spec]; NDJSON: jeden objekt se stejnými poli na řádek
+    @PostMapping("/import")
+    public ProductImportResponse importProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body
+    ) {
+        return productImportService.importProducts(body, ProductImportService.parseFormat(format, contentType));
+    }
+}
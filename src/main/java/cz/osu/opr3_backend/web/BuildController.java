@@ -1,6 +1,11 @@
 package cz.osu.opr3_backend.web;
 
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.service.BuildOptimizerService;
 import cz.osu.opr3_backend.service.BuildService;
+import cz.osu.opr3_backend.service.CheckoutJobService;
+import cz.osu.opr3_backend.service.IdempotencyService;
+import cz.osu.opr3_backend.web.dto.ProductResponse;
 import cz.osu.opr3_backend.web.dto.build.BuildCreateRequest;
 import cz.osu.opr3_backend.web.dto.build.BuildItemAddRequest;
 import cz.osu.opr3_backend.web.dto.build.BuildResponse;
@@ -8,12 +13,19 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import cz.osu.opr3_backend.web.dto.order.CheckoutJobResponse;
 import cz.osu.opr3_backend.web.dto.order.OrderResponse;
 import cz.osu.opr3_backend.web.dto.build.CompatibilityReportResponse;
 import cz.osu.opr3_backend.web.dto.build.BuildValidationResponse;
 import cz.osu.opr3_backend.web.dto.build.BuildSummaryResponse;
+import cz.osu.opr3_backend.web.dto.build.BuildBatchRequest;
+import cz.osu.opr3_backend.web.dto.build.BuildReportResponse;
+import cz.osu.opr3_backend.web.dto.build.BuildOptimizeRequest;
+import cz.osu.opr3_backend.web.dto.build.BuildOptimizeResponse;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/builds")
@@ -21,6 +33,9 @@ import java.util.List;
 public class BuildController {
 
     private final BuildService buildService;
+    private final BuildOptimizerService buildOptimizerService;
+    private final CheckoutJobService checkoutJobService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -28,10 +43,29 @@ public class BuildController {
         return BuildResponse.of(buildService.create(req));
     }
 
+    // opakovany checkout se stejnym Idempotency-Key vrati puvodni objednavku (bez nove objednavky a odpisu)
     @PostMapping("/{id}/checkout")
     @ResponseStatus(HttpStatus.CREATED)
-    public OrderResponse checkout(@PathVariable Long id) {
-        return OrderResponse.of(buildService.checkout(id));
+    public OrderResponse checkout(@PathVariable Long id,
+                                  @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "checkout:build:" + id, OrderResponse.class,
+                () -> OrderResponse.of(buildService.checkout(id)));
+    }
+
+    // POST /api/builds/{id}/checkout/async – checkout ve frontě, hned vrací job
+    @PostMapping("/{id}/checkout/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CheckoutJobResponse checkoutAsync(@PathVariable Long id) {
+        return checkoutJobService.submit(id);
+    }
+
+    // GET /api/builds/checkout-jobs/{jobId}?waitMs=5000 – stav jobu, volitelně long-poll
+    @GetMapping("/checkout-jobs/{jobId}")
+    public CompletableFuture<CheckoutJobResponse> checkoutJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long waitMs
+    ) {
+        return checkoutJobService.await(jobId, Duration.ofMillis(waitMs));
     }
 
     @PostMapping("/{id}/items")
@@ -41,12 +75,12 @@ public class BuildController {
 
     @GetMapping
     public List<BuildResponse> list() {
-        return buildService.list().stream().map(BuildResponse::of).toList();
+        return buildService.list();
     }
 
     @GetMapping("/{id}")
     public BuildResponse get(@PathVariable Long id) {
-        return BuildResponse.of(buildService.get(id));
+        return buildService.get(id);
     }
 
     @GetMapping("/{id}/compatibility")
@@ -64,6 +98,29 @@ public class BuildController {
         return buildService.getBuildSummary(id);
     }
 
+    // GET /api/builds/{id}/compatible-parts?category=MB – díly skladem, které s buildem nekolidují
+    @GetMapping("/{id}/compatible-parts")
+    public List<ProductResponse> compatibleParts(@PathVariable Long id,
+                                                 @RequestParam Product.Category category,
+                                                 @RequestParam(defaultValue = "50") int limit) {
+        return buildService.compatibleParts(id, category, Math.max(1, Math.min(limit, 200)))
+                .stream()
+                .map(ProductResponse::of)
+                .toList();
+    }
+
+    // POST /api/builds/optimize – nejlevnější / nejvýkonnější kompatibilní sestava v rozpočtu (nic se neukládá)
+    @PostMapping("/optimize")
+    public BuildOptimizeResponse optimize(@RequestBody @Valid BuildOptimizeRequest req) {
+        return buildOptimizerService.optimize(req);
+    }
+
+    // POST /api/builds/batch/reports – summary, kompatibilita a validace pro více buildů najednou
+    @PostMapping("/batch/reports")
+    public List<BuildReportResponse> batchReports(@RequestBody @Valid BuildBatchRequest req) {
+        return buildService.evaluateBatch(req.ids());
+    }
+
     @DeleteMapping("/{id}/items/{itemId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void removeItem(@PathVariable Long id, @PathVariable Long itemId) {
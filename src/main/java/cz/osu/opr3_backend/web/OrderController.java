@@ -1,14 +1,16 @@
 package cz.osu.opr3_backend.web;
 
 import cz.osu.opr3_backend.model.entity.Order;
+import cz.osu.opr3_backend.service.IdempotencyService;
 import cz.osu.opr3_backend.service.OrderService;
 import cz.osu.opr3_backend.web.dto.order.*;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -16,6 +18,7 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -23,21 +26,29 @@ public class OrderController {
         return OrderResponse.of(orderService.create());
     }
 
+    // GET /api/orders?status=PAID&from=2024-01-01T00:00:00Z&to=...&cursor=&limit= – moje objednavky po strankach
     @GetMapping
-    public List<OrderResponse> list(@RequestParam(required = false) Order.Status status) {
-        return orderService.listMy().stream()
-                .map(OrderResponse::of)
-                .toList();
+    public OrderPageResponse list(@RequestParam(required = false) Order.Status status,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer limit) {
+        return orderService.listMy(status, from, to, cursor, limit);
     }
 
     @GetMapping("/{id}")
     public OrderResponse get(@PathVariable Long id) {
-        return OrderResponse.of(orderService.getMy(id));
+        return orderService.get(id);
     }
 
+    // opakovany request se stejnym Idempotency-Key vrati puvodni odpoved (polozka se neprida znovu)
     @PostMapping("/{id}/items")
-    public OrderResponse addItem(@PathVariable Long id, @RequestBody @Valid OrderItemAddRequest req) {
-        return OrderResponse.of(orderService.addItem(id, req));
+    public OrderResponse addItem(@PathVariable Long id,
+                                 @RequestBody @Valid OrderItemAddRequest req,
+                                 @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String scope = "order:" + id + ":add-item:" + req.productId() + "x" + req.quantity();
+        return idempotencyService.execute(idempotencyKey, scope, OrderResponse.class,
+                () -> OrderResponse.of(orderService.addItem(id, req)));
     }
 
     @DeleteMapping("/{id}/items/{itemId}")
@@ -1,15 +1,24 @@
 package cz.osu.opr3_backend.web;
 
 import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.SpecFilter;
 import cz.osu.opr3_backend.service.ProductService;
 import cz.osu.opr3_backend.web.dto.ProductCreateRequest;
+import cz.osu.opr3_backend.web.dto.ProductFlashSaleRequest;
+import cz.osu.opr3_backend.web.dto.ProductPageResponse;
 import cz.osu.opr3_backend.web.dto.ProductResponse;
+import cz.osu.opr3_backend.web.dto.ProductStockShardsRequest;
 import cz.osu.opr3_backend.web.dto.ProductStockUpdateRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -27,20 +36,49 @@ public class ProductController {
         return ProductResponse.of(p);
     }
 
-    // GET /api/products/{id} – detail produktu podle ID
+    // GET /api/products/catalog – stránkovaný katalog bez spec, ?page=0&size=50&sort=price,desc&category=GPU
+    // If-None-Match se shodným ETagem -> 304 bez načítání produktů (ETag = sdílená verze katalogu)
+    @GetMapping("/catalog")
+    public ResponseEntity<ProductPageResponse> catalog(
+            @RequestParam(required = false) Product.Category category,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            WebRequest request
+    ) {
+        String etag = productService.catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(productService.catalog(category, page, size, sort));
+    }
+
+    // GET /api/products/{id} – detail produktu podle ID (z cache, stockAsOf = stáří skladu)
     @GetMapping("/{id}")
     public ProductResponse get(@PathVariable Long id) {
-        Product p = productService.get(id);
-        return ProductResponse.of(p);
+        return productService.getCached(id);
     }
 
     // GET /api/products – seznam všech produktů
+    // filtry nad spec: ?spec.socket=AM5&spec.wattage>=750
+    // q = fulltext nad názvem/SKU (řazeno podle relevance, toleruje prefix a překlepy), limit jen pro q
     @GetMapping
     public List<ProductResponse> getAll(
             @RequestParam(required = false) Product.Category category,
-            @RequestParam(required = false) String q
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam MultiValueMap<String, String> params
     ) {
-        return productService.findAll(category, q)
+        List<SpecFilter> specFilters = new ArrayList<>();
+        params.forEach((key, values) -> {
+            if (!key.startsWith(SpecFilter.PARAM_PREFIX)) return;
+            values.forEach(v -> specFilters.add(SpecFilter.parse(key, v)));
+        });
+
+        return productService.findAll(category, q, specFilters, limit)
                 .stream()
                 .map(ProductResponse::of)
                 .toList();
@@ -59,6 +97,18 @@ public class ProductController {
         return ProductResponse.of(productService.updateStock(id, req.stock()));
     }
 
+    // PUT /api/products/{id}/stock-shards – rozdělení skladu do slotů (0 nebo 1 = vypnout)
+    @PutMapping("/{id}/stock-shards")
+    public ProductResponse updateStockShards(@PathVariable Long id, @RequestBody @Valid ProductStockShardsRequest req) {
+        return ProductResponse.of(productService.updateStockShards(id, req.shards()));
+    }
+
+    // PUT /api/products/{id}/flash-sale – sklad v paměťovém ledgeru s rezervacemi
+    @PutMapping("/{id}/flash-sale")
+    public ProductResponse updateFlashSale(@PathVariable Long id, @RequestBody @Valid ProductFlashSaleRequest req) {
+        return ProductResponse.of(productService.updateFlashSale(id, req.enabled()));
+    }
+
     // DELETE /api/products/{id} – smazání produktu
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -0,0 +1,18 @@
+package cz.osu.opr3_backend.web.dto;
+
+import java.time.Instant;
+
+public record InvalidationBusStatsResponse(
+        boolean enabled,
+        String nodeId,
+        String channel,
+        boolean connected,
+        long published,
+        long received,
+        long ownSkipped,
+        long reconnects,
+        long resyncs,
+        long lastLagMs,
+        long maxLagMs,
+        Instant lastEventAt
+) {}
@@ -0,0 +1,23 @@
+package cz.osu.opr3_backend.web.dto;
+
+import java.time.Duration;
+
+public record ProductCacheStatsResponse(
+        int size,
+        int maxSize,
+        String ttl,
+        long hits,
+        long misses,
+        double hitRatio,
+        long loads,
+        long evictions,
+        long invalidations
+) {
+    public static ProductCacheStatsResponse of(int size, int maxSize, Duration ttl, long hits, long misses,
+                                               long loads, long evictions, long invalidations) {
+        long lookups = hits + misses;
+        double hitRatio = lookups == 0 ? 0.0 : (double) hits / lookups;
+        return new ProductCacheStatsResponse(size, maxSize, ttl.toString(), hits, misses, hitRatio,
+                loads, evictions, invalidations);
+    }
+}
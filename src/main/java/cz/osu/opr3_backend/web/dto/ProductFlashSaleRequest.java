@@ -0,0 +1,7 @@
+package cz.osu.opr3_backend.web.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record ProductFlashSaleRequest(
+        @NotNull Boolean enabled
+) {}
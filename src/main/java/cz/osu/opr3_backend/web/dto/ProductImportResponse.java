@@ -0,0 +1,19 @@
+package cz.osu.opr3_backend.web.dto;
+
+import java.util.List;
+
+// souhrn importu; stockKept = produkty s rozdelenym skladem / ve flash-sale, sklad z importu ignorovan
+public record ProductImportResponse(
+        long rows,
+        int inserted,
+        int updated,
+        int unchanged,
+        int stockKept,
+        int failed,
+        List<RowError> errors,
+        boolean errorsTruncated,
+        long tookMs
+) {
+    // line = cislo radku vstupu (u CSV vcetne hlavicky)
+    public record RowError(long line, String sku, String message) {}
+}
@@ -0,0 +1,25 @@
+package cz.osu.opr3_backend.web.dto;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// stranka katalogu; page je od 0
+public record ProductPageResponse(
+        List<ProductSummaryResponse> items,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+) {
+    public static ProductPageResponse of(Page<Product> page) {
+        return new ProductPageResponse(
+                page.getContent().stream().map(ProductSummaryResponse::of).toList(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()
+        );
+    }
+}
@@ -2,6 +2,7 @@ package cz.osu.opr3_backend.web.dto;
 
 import cz.osu.opr3_backend.model.entity.Product;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public record ProductResponse(
         Long id,
@@ -10,7 +11,8 @@ public record ProductResponse(
         Product.Category category,
         BigDecimal price,
         Integer stock,
-        String spec
+        String spec,
+        Instant stockAsOf   // null = sklad nacteny z DB v tomto pozadavku, jinak cas nacteni do cache
 ) {
     public static ProductResponse of(Product p) {
         return new ProductResponse(
@@ -20,7 +22,21 @@ public record ProductResponse(
                 p.getCategory(),
                 p.getPrice(),
                 p.getStock(),
-                p.getSpec()
+                p.getSpec(),
+                null
+        );
+    }
+
+    public static ProductResponse cached(Product p, Instant loadedAt) {
+        return new ProductResponse(
+                p.getId(),
+                p.getSku(),
+                p.getName(),
+                p.getCategory(),
+                p.getPrice(),
+                p.getStock(),
+                p.getSpec(),
+                loadedAt
         );
     }
 }
@@ -0,0 +1,9 @@
+package cz.osu.opr3_backend.web.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ProductStockShardsRequest(
+        @NotNull @Min(0) @Max(64) Integer shards
+) {}
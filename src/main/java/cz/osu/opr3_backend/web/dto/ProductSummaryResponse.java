@@ -0,0 +1,25 @@
+package cz.osu.opr3_backend.web.dto;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import java.math.BigDecimal;
+
+// polozka katalogu bez spec (detail vraci ProductResponse)
+public record ProductSummaryResponse(
+        Long id,
+        String sku,
+        String name,
+        Product.Category category,
+        BigDecimal price,
+        Integer stock
+) {
+    public static ProductSummaryResponse of(Product p) {
+        return new ProductSummaryResponse(
+                p.getId(),
+                p.getSku(),
+                p.getName(),
+                p.getCategory(),
+                p.getPrice(),
+                p.getStock()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package cz.osu.opr3_backend.web.dto.build;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BuildBatchRequest(
+        @NotEmpty @Size(max = 100) List<@NotNull Long> ids
+) {}
@@ -0,0 +1,22 @@
+package cz.osu.opr3_backend.web.dto.build;
+
+import cz.osu.opr3_backend.model.entity.Product;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BuildOptimizeRequest(
+        @NotNull @Positive BigDecimal budget,
+        @NotEmpty List<Product.@NotNull Category> requiredCategories,
+        Objective objective,
+        String preferredSocket,
+        @Min(0) Integer minGpuTdp,
+        @Positive Integer timeLimitMs
+) {
+    // CHEAPEST = nejnižší cena, PERFORMANCE = nejvyšší součet TDP CPU+GPU (hrubý odhad výkonu) v rámci rozpočtu
+    public enum Objective { CHEAPEST, PERFORMANCE }
+}
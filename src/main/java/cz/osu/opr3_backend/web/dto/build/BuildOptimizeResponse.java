@@ -0,0 +1,16 @@
+package cz.osu.opr3_backend.web.dto.build;
+
+import cz.osu.opr3_backend.web.dto.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BuildOptimizeResponse(
+        boolean found,
+        boolean timedOut,
+        BigDecimal totalPrice,
+        List<ProductResponse> items,
+        CompatibilityReportResponse compatibility,
+        long exploredNodes,
+        long elapsedMs
+) {}
@@ -0,0 +1,13 @@
+package cz.osu.opr3_backend.web.dto.build;
+
+public record BuildReportResponse(
+        Long buildId,
+        boolean found,
+        BuildSummaryResponse summary,
+        CompatibilityReportResponse compatibility,
+        BuildValidationResponse validation
+) {
+    public static BuildReportResponse notFound(Long buildId) {
+        return new BuildReportResponse(buildId, false, null, null, null);
+    }
+}
@@ -0,0 +1,12 @@
+package cz.osu.opr3_backend.web.dto.build;
+
+import cz.osu.opr3_backend.service.rules.BuildRuleDefinition;
+
+public record BuildRuleStatsResponse(
+        String id,
+        BuildRuleDefinition.Type type,
+        BuildRuleDefinition.Scope scope,
+        long calls,
+        long totalNanos,
+        long avgNanos
+) {}
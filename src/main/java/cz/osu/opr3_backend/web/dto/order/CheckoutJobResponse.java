@@ -0,0 +1,22 @@
+package cz.osu.opr3_backend.web.dto.order;
+
+import cz.osu.opr3_backend.model.entity.CheckoutJob;
+import cz.osu.opr3_backend.model.entity.Order;
+
+import java.time.Instant;
+import java.util.Map;
+
+// stav asynchronniho checkoutu; po dokonceni orderId/orderStatus = vytvorena objednavka
+public record CheckoutJobResponse(
+        String jobId,
+        Long buildId,
+        CheckoutJob.State state,
+        Long orderId,
+        Order.Status orderStatus,
+        OrderResponse order,
+        String error,
+        String message,
+        Map<String, Object> details,
+        Instant createdAt,
+        Instant completedAt
+) {}
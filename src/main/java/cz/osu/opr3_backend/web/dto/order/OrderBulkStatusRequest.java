@@ -0,0 +1,17 @@
+package cz.osu.opr3_backend.web.dto.order;
+
+import cz.osu.opr3_backend.model.entity.Order;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+
+// hromadna zmena stavu: bud seznam id, nebo filtr (fromStatus povinny, from/to volitelne)
+public record OrderBulkStatusRequest(
+        @NotNull Order.Status status,
+        @Size(max = 10000) List<@NotNull Long> ids,
+        Order.Status fromStatus,
+        Instant from,
+        Instant to
+) {}
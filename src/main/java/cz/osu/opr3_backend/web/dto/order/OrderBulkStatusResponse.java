@@ -0,0 +1,18 @@
+package cz.osu.opr3_backend.web.dto.order;
+
+import cz.osu.opr3_backend.model.entity.Order;
+
+import java.util.List;
+
+public record OrderBulkStatusResponse(
+        Order.Status status,
+        int updated,
+        int notFound,
+        int invalidTransition,
+        List<Result> results
+) {
+    public enum Outcome { UPDATED, NOT_FOUND, INVALID_TRANSITION }
+
+    // previousStatus = stav pred zmenou (u INVALID_TRANSITION aktualni stav)
+    public record Result(Long id, Outcome outcome, Order.Status previousStatus) {}
+}
@@ -0,0 +1,9 @@
+package cz.osu.opr3_backend.web.dto.order;
+
+import java.util.List;
+
+// stranka objednavek; nextCursor null = posledni stranka
+public record OrderPageResponse(
+        List<OrderResponse> items,
+        String nextCursor
+) {}
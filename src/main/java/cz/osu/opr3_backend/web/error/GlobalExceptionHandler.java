@@ -64,6 +64,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiError handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest req) {
+        return ApiError.of(
+                HttpStatus.BAD_REQUEST,
+                ex.getMessage(),
+                req.getRequestURI()
+        );
+    }
+
     @ExceptionHandler(OutOfStockException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ApiError handleOutOfStock(OutOfStockException ex, HttpServletRequest req) {
@@ -116,6 +126,12 @@ public class GlobalExceptionHandler {
         return ApiError.of(HttpStatus.CONFLICT, ex.getMessage(), req.getRequestURI(), null);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleServiceBusy(ServiceBusyException ex, HttpServletRequest req) {
+        return ApiError.of(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req.getRequestURI(), null);
+    }
+
     @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ApiError handleOptimistic(ObjectOptimisticLockingFailureException ex, HttpServletRequest req) {
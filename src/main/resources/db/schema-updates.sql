@@ -0,0 +1,54 @@
+-- Doplnky schematu, ktere Hibernate ddl-auto=update neumi (spousti se po nem, viz spring.sql.init.*).
+-- Vsechny prikazy musi jit pustit opakovane. Telo DO bloku je v apostrofech (ne $$),
+-- aby ho Spring pri deleni skriptu podle ';' nerozsekal.
+
+-- Product.spec: text -> jsonb. Puvodne se spec ukladal bez validace, takze prime ALTER ... USING spec::jsonb
+-- by na prvnim neplatnem radku shodil start aplikace. Prevod jde po radcich do nove kolony; neplatny JSON
+-- se presune do spec_invalid (spec = NULL) a zaloguje se jako WARNING, pak se kolony prohodi.
+DO 'DECLARE
+    r record;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = ''product'' AND column_name = ''spec'' AND data_type = ''text'') THEN
+        ALTER TABLE product ADD COLUMN IF NOT EXISTS spec_json jsonb;
+        ALTER TABLE product ADD COLUMN IF NOT EXISTS spec_invalid text;
+        FOR r IN SELECT id, spec FROM product WHERE spec IS NOT NULL AND btrim(spec) <> '''' LOOP
+            BEGIN
+                UPDATE product SET spec_json = r.spec::jsonb WHERE id = r.id;
+            EXCEPTION WHEN invalid_text_representation THEN
+                UPDATE product SET spec_invalid = r.spec WHERE id = r.id;
+                RAISE WARNING ''product % has invalid JSON spec, moved to product.spec_invalid'', r.id;
+            END;
+        END LOOP;
+        ALTER TABLE product DROP COLUMN spec;
+        ALTER TABLE product RENAME COLUMN spec_json TO spec;
+    END IF;
+END';
+
+-- filtry spec.attr=value (spec @> ...)
+CREATE INDEX IF NOT EXISTS ix_product_spec_gin ON product USING gin (spec jsonb_path_ops);
+
+-- rozsahove filtry nad nejcastejsimi ciselnymi atributy
+CREATE INDEX IF NOT EXISTS ix_product_spec_tdp ON product ((spec -> 'tdp'));
+CREATE INDEX IF NOT EXISTS ix_product_spec_wattage ON product ((spec -> 'wattage'));
+
+-- Order/OrderItem/Build/BuildItem: identity -> sekvence (pooled po 50, kvuli JDBC batch insertum).
+-- setval nikdy nesnizuje (GREATEST s last_value), aby opakovane spusteni nevracelo uz pridelena id.
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE order_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE build ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE build_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('orders_seq', GREATEST((SELECT coalesce(max(id), 0) FROM orders), (SELECT last_value FROM orders_seq)));
+SELECT setval('order_item_seq', GREATEST((SELECT coalesce(max(id), 0) FROM order_item), (SELECT last_value FROM order_item_seq)));
+SELECT setval('build_seq', GREATEST((SELECT coalesce(max(id), 0) FROM build), (SELECT last_value FROM build_seq)));
+SELECT setval('build_item_seq', GREATEST((SELECT coalesce(max(id), 0) FROM build_item), (SELECT last_value FROM build_item_seq)));
+
+-- Build: agregaty se pocitaji ze snapshotu polozek; buildy se starymi polozkami (bez snapshotu)
+-- oznacit k prepoctu, BuildAggregator je dopocita pri dalsi zmene
+UPDATE build SET total_price = NULL
+WHERE total_price IS NOT NULL
+  AND EXISTS (SELECT 1 FROM build_item bi WHERE bi.build_id = build.id AND bi.category IS NULL);
+
+-- sdilena verze katalogu pro ETag (CatalogVersion); sekvence je mimo transakce, nextval se nezamyka
+CREATE SEQUENCE IF NOT EXISTS catalog_version_seq;
@@ -0,0 +1,27 @@
+package cz.osu.opr3_backend;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Počítá SQL příkazy, které Hibernate připraví ve vlákně testu (MockMvc request běží ve stejném
+ * vlákně). Zapíná se {@code hibernate.session_factory.statement_inspector}; plánované úlohy
+ * v jiných vláknech se tak do počtu nepletou.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
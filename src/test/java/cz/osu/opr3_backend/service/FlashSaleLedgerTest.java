@@ -0,0 +1,209 @@
+package cz.osu.opr3_backend.service;
+
+import cz.osu.opr3_backend.model.entity.FlashSaleAllotment;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.repo.FlashSaleAllotmentRepository;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Podíl skladu flash-sale produktu: rezervace, rollback checkoutu, ztracený podíl a prodej navíc.
+ * Plánovače mají dlouhé intervaly, test je volá sám.
+ */
+@SpringBootTest(properties = {
+        "app.flash-sale.allotment-size=5",
+        "app.flash-sale.hold-ttl=PT0.2S",
+        "app.flash-sale.expire-ms=3600000",
+        "app.flash-sale.flush-ms=3600000",
+        "app.flash-sale.allotment-ttl=PT1H",
+        "app.flash-sale.allotment-renew-ms=1000000"
+})
+@ActiveProfiles("test")
+class FlashSaleLedgerTest {
+
+    @Autowired
+    private FlashSaleLedger ledger;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private FlashSaleAllotmentRepository allotmentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String prefix = "flash-" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<Product> products = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        for (Product p : products) {
+            ledger.disable(p.getId());
+        }
+        allotmentRepository.deleteAll();
+        productRepository.deleteAllById(products.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void enableReservesAllotmentFromStock() {
+        Product p = flashSaleProduct(8);
+
+        assertThat(stock(p)).isEqualTo(3);
+        assertThat(allotted(p)).isEqualTo(5);
+
+        ledger.disable(p.getId());
+
+        assertThat(stock(p)).isEqualTo(8);
+        assertThat(allotmentRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void expiredHoldFreesUnits() throws InterruptedException {
+        Product p = flashSaleProduct(5);
+
+        ledger.hold("build:1", p.getId(), 5);
+        assertThatThrownBy(() -> ledger.hold("build:2", p.getId(), 1))
+                .isInstanceOf(OutOfStockException.class);
+
+        Thread.sleep(300);
+        ledger.expireHolds();
+
+        ledger.hold("build:2", p.getId(), 1);
+        assertThat(stock(p)).isZero();
+    }
+
+    @Test
+    void rollbackRestoresHoldAndFreeUnits() {
+        Product p = flashSaleProduct(5);
+        ledger.hold("build:1", p.getId(), 2);
+
+        // 2 z rezervace + 2 volne; rollback je musi vratit na sve misto
+        tx().executeWithoutResult(s -> {
+            ledger.consume("build:1", Map.of(p.getId(), 4));
+            s.setRollbackOnly();
+        });
+
+        // rezervace zustala: jiny drzitel dostane jen 3 volne
+        assertThatThrownBy(() -> ledger.hold("build:2", p.getId(), 4))
+                .isInstanceOf(OutOfStockException.class);
+        ledger.hold("build:2", p.getId(), 3);
+
+        tx().executeWithoutResult(s -> ledger.consume("build:1", Map.of(p.getId(), 2)));
+        ledger.flushAll();
+
+        assertThat(allotted(p)).isEqualTo(3);
+        assertThat(stock(p)).isZero();
+    }
+
+    @Test
+    void rolledBackHoldReturnsUnits() {
+        Product p = flashSaleProduct(5);
+
+        tx().executeWithoutResult(s -> {
+            ledger.hold("build:1", p.getId(), 5);
+            s.setRollbackOnly();
+        });
+
+        ledger.hold("build:2", p.getId(), 5);
+    }
+
+    @Test
+    void lostAllotmentIsWrittenOffFromStockAndOversoldStaysUnsettled() {
+        Product p = flashSaleProduct(5);
+        tx().executeWithoutResult(s -> ledger.consume("build:1", Map.of(p.getId(), 3)));
+
+        // podil mezitim vratila jina instance a vraceny sklad se skoro cely prodal
+        allotmentRepository.deleteAll();
+        setStock(p, 1);
+
+        ledger.flushAll();
+        assertThat(stock(p)).isZero();
+
+        // volne kusy z propadleho podilu uz nejsou kryte
+        assertThatThrownBy(() -> ledger.hold("build:2", p.getId(), 1))
+                .isInstanceOf(OutOfStockException.class);
+
+        // po doplneni skladu se zbyle 2 prodane kusy odepisou
+        setStock(p, 10);
+        ledger.flushAll();
+        assertThat(stock(p)).isEqualTo(8);
+
+        ledger.flushAll();
+        assertThat(stock(p)).isEqualTo(8);
+    }
+
+    @Test
+    void expiredAllotmentOfAnotherInstanceReturnsToStock() {
+        Product p = product(2, false);
+        allotmentRepository.save(FlashSaleAllotment.builder()
+                .productId(p.getId())
+                .nodeId("gone")
+                .qty(7)
+                .expiresAt(Instant.now().minusSeconds(1))
+                .build());
+
+        ledger.renewAllotments();
+
+        assertThat(stock(p)).isEqualTo(9);
+        assertThat(allotmentRepository.findAll()).isEmpty();
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private Product flashSaleProduct(int stock) {
+        Product p = product(stock, true);
+        ledger.enable(p);
+        return p;
+    }
+
+    private Product product(int stock, boolean flashSale) {
+        Product p = productRepository.save(Product.builder()
+                .sku(prefix + "-" + products.size())
+                .name("Flash sale " + products.size())
+                .category(Product.Category.GPU)
+                .price(BigDecimal.valueOf(1000))
+                .stock(stock)
+                .flashSale(flashSale ? Boolean.TRUE : null)
+                .build());
+        products.add(p);
+        return p;
+    }
+
+    private int stock(Product p) {
+        return productRepository.findStockById(p.getId());
+    }
+
+    private int allotted(Product p) {
+        return allotmentRepository.findAll().stream()
+                .filter(a -> a.getProductId().equals(p.getId()))
+                .mapToInt(FlashSaleAllotment::getQty)
+                .sum();
+    }
+
+    private void setStock(Product p, int stock) {
+        tx().executeWithoutResult(s -> {
+            Product managed = productRepository.findById(p.getId()).orElseThrow();
+            managed.setStock(stock);
+        });
+    }
+
+    private TransactionTemplate tx() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
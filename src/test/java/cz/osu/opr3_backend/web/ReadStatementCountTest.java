@@ -0,0 +1,238 @@
+package cz.osu.opr3_backend.web;
+
+import cz.osu.opr3_backend.SqlStatementCounter;
+import cz.osu.opr3_backend.model.entity.Build;
+import cz.osu.opr3_backend.model.entity.BuildItem;
+import cz.osu.opr3_backend.model.entity.Order;
+import cz.osu.opr3_backend.model.entity.OrderItem;
+import cz.osu.opr3_backend.model.entity.Product;
+import cz.osu.opr3_backend.model.entity.User;
+import cz.osu.opr3_backend.model.repo.BuildRepository;
+import cz.osu.opr3_backend.model.repo.OrderRepository;
+import cz.osu.opr3_backend.model.repo.ProductRepository;
+import cz.osu.opr3_backend.model.repo.UserRepository;
+import cz.osu.opr3_backend.security.JwtService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Čtení objednávek a buildů musí mít konstantní počet SQL příkazů – stejný pro uživatele
+ * s jednou položkou i pro uživatele s desítkami objednávek a stovkou položek (žádné N+1).
+ * <p>
+ * Běží nad H2 v režimu PostgreSQL (profil {@code test}). Data si zakládá s unikátním prefixem
+ * a po sobě je smaže.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=cz.osu.opr3_backend.SqlStatementCounter")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadStatementCountTest {
+
+    private static final int LARGE_ORDERS = 20;
+    private static final int ITEMS_PER_ORDER = 5;
+    private static final int LARGE_BUILDS = 5;
+    private static final int ITEMS_PER_BUILD = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private BuildRepository buildRepository;
+
+    private final String prefix = "stmt-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final List<Product> products = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Build> builds = new ArrayList<>();
+    private User small;
+    private User large;
+    private User admin;
+
+    private Order smallOrder;
+    private Order largeOrder;
+    private Build smallBuild;
+    private Build largeBuild;
+
+    @BeforeAll
+    void seed() {
+        small = userRepository.save(user("small"));
+        large = userRepository.save(user("large"));
+        admin = user("admin");
+        admin.setRole(User.Role.ADMIN);
+        admin = userRepository.save(admin);
+
+        for (int i = 0; i < Math.max(ITEMS_PER_ORDER, ITEMS_PER_BUILD); i++) {
+            products.add(productRepository.save(Product.builder()
+                    .sku(prefix + "-" + i)
+                    .name("Statement count " + i)
+                    .category(Product.Category.values()[i % Product.Category.values().length])
+                    .price(BigDecimal.valueOf(100 + i))
+                    .stock(100)
+                    .build()));
+        }
+
+        smallOrder = order(small, 1);
+        for (int i = 0; i < LARGE_ORDERS; i++) {
+            largeOrder = order(large, ITEMS_PER_ORDER);
+        }
+
+        smallBuild = build(small, 1);
+        for (int i = 0; i < LARGE_BUILDS; i++) {
+            largeBuild = build(large, ITEMS_PER_BUILD);
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        orderRepository.deleteAll(orders);
+        buildRepository.deleteAll(builds);
+        productRepository.deleteAll(products);
+        userRepository.deleteAll(List.of(small, large, admin));
+    }
+
+    // ----------------------------
+    // Orders
+    // ----------------------------
+
+    @Test
+    void myOrderListUsesKeysAndOneFetch() throws Exception {
+        int one = statements("/api/orders", token(small));
+        int many = statements("/api/orders", token(large));
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void myOrderDetailUsesOneSelect() throws Exception {
+        int one = statements("/api/orders/" + smallOrder.getId(), token(small));
+        int many = statements("/api/orders/" + largeOrder.getId(), token(large));
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isEqualTo(1);
+    }
+
+    @Test
+    void adminOrderListUsesKeysAndOneFetch() throws Exception {
+        int one = statements("/api/admin/orders?limit=1", adminToken());
+        int many = statements("/api/admin/orders?limit=" + LARGE_ORDERS, adminToken());
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void adminOrderDetailUsesOneSelect() throws Exception {
+        int one = statements("/api/admin/orders/" + smallOrder.getId(), adminToken());
+        int many = statements("/api/admin/orders/" + largeOrder.getId(), adminToken());
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isEqualTo(1);
+    }
+
+    // ----------------------------
+    // Builds
+    // ----------------------------
+
+    @Test
+    void buildListUsesOneSelect() throws Exception {
+        int one = statements("/api/builds", token(small));
+        int many = statements("/api/builds", token(large));
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isEqualTo(1);
+    }
+
+    @Test
+    void buildDetailUsesOneSelect() throws Exception {
+        int one = statements("/api/builds/" + smallBuild.getId(), token(small));
+        int many = statements("/api/builds/" + largeBuild.getId(), token(large));
+
+        assertThat(many).isEqualTo(one);
+        assertThat(many).isEqualTo(1);
+    }
+
+    // ----------------------------
+    // Helpers
+    // ----------------------------
+
+    private int statements(String url, String token) throws Exception {
+        SqlStatementCounter.reset();
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        return SqlStatementCounter.count();
+    }
+
+    private String token(User u) {
+        return jwtService.generateToken(u.getUsername(), u.getRole().name());
+    }
+
+    private String adminToken() {
+        return token(admin);
+    }
+
+    private User user(String name) {
+        return User.builder()
+                .username(prefix + "-" + name)
+                .email(prefix + "-" + name + "@example.com")
+                .passwordHash("-")
+                .role(User.Role.USER)
+                .build();
+    }
+
+    private Order order(User owner, int itemCount) {
+        Order o = Order.builder()
+                .owner(owner)
+                .status(Order.Status.NEW)
+                .totalPrice(BigDecimal.ZERO)
+                .build();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            Product p = products.get(i);
+            o.getItems().add(OrderItem.builder().order(o).product(p).quantity(1).unitPrice(p.getPrice()).build());
+            total = total.add(p.getPrice());
+        }
+        o.setTotalPrice(total);
+        Order saved = orderRepository.save(o);
+        orders.add(saved);
+        return saved;
+    }
+
+    private Build build(User owner, int itemCount) {
+        Build b = Build.builder()
+                .owner(owner)
+                .name(prefix + " build")
+                .build();
+        for (int i = 0; i < itemCount; i++) {
+            b.getItems().add(BuildItem.builder().build(b).product(products.get(i)).quantity(1).build());
+        }
+        Build saved = buildRepository.save(b);
+        builds.add(saved);
+        return saved;
+    }
+}